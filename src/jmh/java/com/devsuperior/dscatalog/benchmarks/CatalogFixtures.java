@@ -0,0 +1,44 @@
+package com.devsuperior.dscatalog.benchmarks;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+
+final class CatalogFixtures {
+
+	private static final String DESCRIPTION = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, "
+			+ "sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, "
+			+ "quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat.";
+
+	private static final Category[] CATEGORIES = {
+		new Category(1L, "Livros"), new Category(2L, "Eletrônicos"), new Category(3L, "Computadores") };
+
+	private CatalogFixtures() {
+	}
+
+	static Product product(long id) {
+		Product product = new Product(id, "PC Gamer " + id, DESCRIPTION, 1000.0 + id % 3000,
+				"https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/" + id + "-big.jpg",
+				Instant.parse("2020-07-14T10:00:00Z").plusSeconds(id));
+		product.getCategories().add(CATEGORIES[(int) (id % CATEGORIES.length)]);
+		if (id % 2 == 0) {
+			product.getCategories().add(CATEGORIES[(int) ((id + 1) % CATEGORIES.length)]);
+		}
+		return product;
+	}
+
+	static Page<Product> page(int size) {
+		List<Product> content = new ArrayList<>(size);
+		for (long id = 1; id <= size; id++) {
+			content.add(product(id));
+		}
+		return new PageImpl<>(content, PageRequest.of(0, size), 10_000L);
+	}
+}
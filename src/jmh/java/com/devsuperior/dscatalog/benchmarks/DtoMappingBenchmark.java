@@ -0,0 +1,55 @@
+package com.devsuperior.dscatalog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+
+/**
+ * Entity to DTO mapping of a single product or category.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+	private Product product;
+	private Category category;
+
+	@Setup
+	public void setup() {
+		product = CatalogFixtures.product(42L);
+		category = product.getCategories().iterator().next();
+	}
+
+	@Benchmark
+	public CategoryDTO categoryToDto() {
+		return new CategoryDTO(category);
+	}
+
+	@Benchmark
+	public ProductDTO productToDto() {
+		return new ProductDTO(product);
+	}
+
+	@Benchmark
+	public ProductDTO productWithCategoriesToDto() {
+		return new ProductDTO(product, product.getCategories());
+	}
+}
@@ -0,0 +1,54 @@
+package com.devsuperior.dscatalog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+
+/**
+ * Mapping a page of entities to DTOs: without categories as the keyset pages
+ * of ProductService.findAllByCursor do, with them as ProductLoader and
+ * ProductExportService do. Offset listings read DTOs from the listing table
+ * and no longer take this path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageMappingBenchmark {
+
+	@Param({ "12", "100", "1000" })
+	private int pageSize;
+
+	private Page<Product> page;
+
+	@Setup
+	public void setup() {
+		page = CatalogFixtures.page(pageSize);
+	}
+
+	@Benchmark
+	public Page<ProductDTO> pageMap() {
+		return page.map(ProductDTO::new);
+	}
+
+	@Benchmark
+	public Page<ProductDTO> pageMapWithCategories() {
+		return page.map(x -> new ProductDTO(x, x.getCategories()));
+	}
+}
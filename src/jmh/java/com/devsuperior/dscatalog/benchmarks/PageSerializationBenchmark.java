@@ -0,0 +1,78 @@
+package com.devsuperior.dscatalog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.devsuperior.dscatalog.config.CacheConfig;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.resources.JsonFragmentCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON rendering of the Page&lt;ProductDTO&gt; returned by GET /products, with an
+ * ObjectMapper configured the way Spring Boot configures the MVC one. The
+ * fromFragments variants render the page the way ProductResource does, out
+ * of a warm JsonFragmentCache, including the cache lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+	@Param({ "12", "100", "1000" })
+	private int pageSize;
+
+	private ObjectMapper objectMapper;
+	private Page<ProductDTO> page;
+	private Page<ProductDTO> pageWithCategories;
+	private JsonFragmentCache fragments;
+
+	@Setup
+	public void setup() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		page = CatalogFixtures.page(pageSize).map(ProductDTO::new);
+		pageWithCategories = CatalogFixtures.page(pageSize).map(x -> new ProductDTO(x, x.getCategories()));
+		fragments = new JsonFragmentCache(new CaffeineCacheManager(CacheConfig.PRODUCT_JSON, CacheConfig.CATEGORY_JSON),
+				objectMapper);
+		page.forEach(fragments::product);
+		pageWithCategories.forEach(fragments::product);
+	}
+
+	@Benchmark
+	public byte[] serializePage() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public byte[] serializePageWithCategories() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(pageWithCategories);
+	}
+
+	@Benchmark
+	public byte[] serializePageFromFragments() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(page.map(fragments::product));
+	}
+
+	@Benchmark
+	public byte[] serializePageWithCategoriesFromFragments() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(pageWithCategories.map(fragments::product));
+	}
+}
@@ -0,0 +1,58 @@
+package com.devsuperior.dscatalog.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.devsuperior.dscatalog.services.CoalescingAspect;
+
+/**
+ * The caching advice runs outside the transactional one, so a hit never
+ * opens a transaction and evictions happen only after the write committed.
+ * Only the method timers in MetricsConfig wrap it. Misses of @Coalesced
+ * reads then pass the coalescing advice before they open a transaction.
+ * The JSON caches hold the serialized fragments of JsonFragmentCache and
+ * are evicted together with the DTO caches. Every cache tracks its
+ * evictions, so a load that overlapped one is not stored, and coalescing
+ * does not join loads that started before the latest eviction.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE + 1)
+public class CacheConfig {
+
+	public static final String PRODUCTS = "products";
+	public static final String CATEGORIES = "categories";
+	public static final String PRODUCT_JSON = "productJson";
+	public static final String CATEGORY_JSON = "categoryJson";
+
+	@Bean
+	public CacheEvictions cacheEvictions() {
+		return new CacheEvictions();
+	}
+
+	@Bean
+	public CacheManager cacheManager(@Value("${dscatalog.cache.spec}") String spec, CacheEvictions evictions) {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+			@Override
+			protected Cache adaptCaffeineCache(String name,
+					com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+				return new EvictionTrackingCache(name, cache, isAllowNullValues(), evictions);
+			}
+		};
+		cacheManager.setCacheSpecification(spec);
+		cacheManager.setCacheNames(List.of(PRODUCTS, CATEGORIES, PRODUCT_JSON, CATEGORY_JSON));
+		return cacheManager;
+	}
+
+	@Bean
+	public CoalescingAspect coalescingAspect(CacheEvictions evictions) {
+		return new CoalescingAspect(evictions);
+	}
+}
@@ -0,0 +1,21 @@
+package com.devsuperior.dscatalog.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the evictions of all caches. A load that started at a lower count
+ * may have read rows that were written since, so coalescing does not let
+ * later callers join it.
+ */
+public class CacheEvictions {
+
+	private final AtomicLong count = new AtomicLong();
+
+	public long count() {
+		return count.get();
+	}
+
+	void evicted() {
+		count.incrementAndGet();
+	}
+}
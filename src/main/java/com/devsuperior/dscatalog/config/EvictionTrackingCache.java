@@ -0,0 +1,118 @@
+package com.devsuperior.dscatalog.config;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * A Caffeine cache that stamps its keys with an eviction count. Loads
+ * through get(key, loader), as @Cacheable(sync = true) does, remember the
+ * stamp of their key and store the value only if no eviction of that key
+ * happened while they ran: a value read before a write committed is
+ * returned to its callers but never cached. Keys share the counters of
+ * their stripe, so an eviction may also keep a load of another key from
+ * being stored, which only costs a miss.
+ */
+public class EvictionTrackingCache extends CaffeineCache {
+
+	private static final int STRIPES = 1024;
+
+	private final CacheEvictions evictions;
+
+	private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+
+	private final AtomicLong clears = new AtomicLong();
+
+	public EvictionTrackingCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+			CacheEvictions evictions) {
+		super(name, cache, allowNullValues);
+		this.evictions = evictions;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper cached = get(key);
+		if (cached != null) {
+			return (T) cached.get();
+		}
+		long stamp = stamp(key);
+		T value;
+		try {
+			value = valueLoader.call();
+		}
+		catch (Exception e) {
+			throw new ValueRetrievalException(key, valueLoader, e);
+		}
+		if (stamp(key) == stamp) {
+			put(key, value);
+			if (stamp(key) != stamp) {
+				getNativeCache().invalidate(key);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public void evict(Object key) {
+		stamped(key);
+		super.evict(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		stamped(key);
+		return super.evictIfPresent(key);
+	}
+
+	@Override
+	public void clear() {
+		cleared();
+		super.clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		cleared();
+		return super.invalidate();
+	}
+
+	public void evictAll(Collection<?> keys) {
+		keys.forEach(this::stamped);
+		getNativeCache().invalidateAll(keys);
+	}
+
+	/**
+	 * Drops the values matching the filter. Counts as a clear, since the
+	 * keys of values still being loaded are unknown.
+	 */
+	public void evictIf(Predicate<Object> filter) {
+		cleared();
+		getNativeCache().asMap().values().removeIf(filter);
+	}
+
+	private long stamp(Object key) {
+		return stamps.get(stripe(key)) + clears.get();
+	}
+
+	private void stamped(Object key) {
+		stamps.incrementAndGet(stripe(key));
+		evictions.evicted();
+	}
+
+	private void cleared() {
+		clears.incrementAndGet();
+		evictions.evicted();
+	}
+
+	private static int stripe(Object key) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & (STRIPES - 1);
+	}
+}
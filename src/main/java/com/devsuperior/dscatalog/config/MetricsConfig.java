@@ -0,0 +1,56 @@
+package com.devsuperior.dscatalog.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.devsuperior.dscatalog.metrics.MethodTimingAspect;
+import com.devsuperior.dscatalog.metrics.QueryBudgetAspect;
+import com.devsuperior.dscatalog.metrics.QueryBudgetGuard;
+import com.devsuperior.dscatalog.metrics.QueryCountFilter;
+import com.devsuperior.dscatalog.metrics.QueryCounter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public QueryCounter queryCounter(MeterRegistry registry) {
+		return new QueryCounter(registry);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+		return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+	}
+
+	@Bean
+	public QueryBudgetGuard queryBudgetGuard(QueryCounter queryCounter,
+			@Value("${dscatalog.query-budget.mode:LOG}") QueryBudgetGuard.Mode mode) {
+		return new QueryBudgetGuard(queryCounter, mode);
+	}
+
+	@Bean
+	public QueryBudgetAspect queryBudgetAspect(QueryBudgetGuard guard) {
+		return new QueryBudgetAspect(guard);
+	}
+
+	@Bean
+	public FilterRegistrationBean<QueryCountFilter> queryCountFilter(QueryCounter queryCounter,
+			MeterRegistry registry) {
+		FilterRegistrationBean<QueryCountFilter> registration = new FilterRegistrationBean<>(
+				new QueryCountFilter(queryCounter, registry));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+		return registration;
+	}
+
+	@Bean
+	public MethodTimingAspect methodTimingAspect(MeterRegistry registry) {
+		return new MethodTimingAspect(registry);
+	}
+}
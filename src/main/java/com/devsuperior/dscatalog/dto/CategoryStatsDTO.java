@@ -0,0 +1,64 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+public class CategoryStatsDTO implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private Long categoryId;
+	private String name;
+	private Long productCount;
+	private Double minPrice;
+	private Double maxPrice;
+
+	public CategoryStatsDTO() {
+	}
+
+	public CategoryStatsDTO(Long categoryId, String name, Long productCount, Double minPrice, Double maxPrice) {
+		this.categoryId = categoryId;
+		this.name = name;
+		this.productCount = productCount;
+		this.minPrice = minPrice;
+		this.maxPrice = maxPrice;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Long categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Long getProductCount() {
+		return productCount;
+	}
+
+	public void setProductCount(Long productCount) {
+		this.productCount = productCount;
+	}
+
+	public Double getMinPrice() {
+		return minPrice;
+	}
+
+	public void setMinPrice(Double minPrice) {
+		this.minPrice = minPrice;
+	}
+
+	public Double getMaxPrice() {
+		return maxPrice;
+	}
+
+	public void setMaxPrice(Double maxPrice) {
+		this.maxPrice = maxPrice;
+	}
+}
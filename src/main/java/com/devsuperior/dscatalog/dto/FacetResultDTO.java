@@ -0,0 +1,127 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class FacetResultDTO implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	public static class PriceBucket implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private Double minPrice;
+		private Double maxPrice;
+		private Integer count;
+
+		public PriceBucket() {
+		}
+
+		public PriceBucket(Double minPrice, Double maxPrice, Integer count) {
+			this.minPrice = minPrice;
+			this.maxPrice = maxPrice;
+			this.count = count;
+		}
+
+		public Double getMinPrice() {
+			return minPrice;
+		}
+
+		public void setMinPrice(Double minPrice) {
+			this.minPrice = minPrice;
+		}
+
+		public Double getMaxPrice() {
+			return maxPrice;
+		}
+
+		public void setMaxPrice(Double maxPrice) {
+			this.maxPrice = maxPrice;
+		}
+
+		public Integer getCount() {
+			return count;
+		}
+
+		public void setCount(Integer count) {
+			this.count = count;
+		}
+	}
+
+	private List<ProductDTO> content = new ArrayList<>();
+	private Integer page;
+	private Integer size;
+	private Long totalElements;
+	private Map<Long, Integer> categories = new TreeMap<>();
+	private List<PriceBucket> prices = new ArrayList<>();
+
+	public FacetResultDTO() {
+	}
+
+	public FacetResultDTO(List<ProductDTO> content, Integer page, Integer size, Long totalElements,
+			Map<Long, Integer> categories, List<PriceBucket> prices) {
+		this.content = content;
+		this.page = page;
+		this.size = size;
+		this.totalElements = totalElements;
+		this.categories = categories;
+		this.prices = prices;
+	}
+
+	public List<ProductDTO> getContent() {
+		return content;
+	}
+
+	public void setContent(List<ProductDTO> content) {
+		this.content = content;
+	}
+
+	public Integer getPage() {
+		return page;
+	}
+
+	public void setPage(Integer page) {
+		this.page = page;
+	}
+
+	public Integer getSize() {
+		return size;
+	}
+
+	public void setSize(Integer size) {
+		this.size = size;
+	}
+
+	public Long getTotalElements() {
+		return totalElements;
+	}
+
+	public void setTotalElements(Long totalElements) {
+		this.totalElements = totalElements;
+	}
+
+	/**
+	 * Matching products per category id, only for categories with at least
+	 * one match.
+	 */
+	public Map<Long, Integer> getCategories() {
+		return categories;
+	}
+
+	public void setCategories(Map<Long, Integer> categories) {
+		this.categories = categories;
+	}
+
+	/**
+	 * Products per price bucket matching every filter but the price range.
+	 */
+	public List<PriceBucket> getPrices() {
+		return prices;
+	}
+
+	public void setPrices(List<PriceBucket> prices) {
+		this.prices = prices;
+	}
+}
@@ -0,0 +1,68 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportResultDTO implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private Long rows = 0L;
+	private Long created = 0L;
+	private Long updated = 0L;
+	private Long failed = 0L;
+	private Long omittedFailures = 0L;
+
+	private List<BatchItemResultDTO> failures = new ArrayList<>();
+
+	public ImportResultDTO() {
+	}
+
+	public Long getRows() {
+		return rows;
+	}
+
+	public void setRows(Long rows) {
+		this.rows = rows;
+	}
+
+	public Long getCreated() {
+		return created;
+	}
+
+	public void setCreated(Long created) {
+		this.created = created;
+	}
+
+	public Long getUpdated() {
+		return updated;
+	}
+
+	public void setUpdated(Long updated) {
+		this.updated = updated;
+	}
+
+	public Long getFailed() {
+		return failed;
+	}
+
+	public void setFailed(Long failed) {
+		this.failed = failed;
+	}
+
+	public Long getOmittedFailures() {
+		return omittedFailures;
+	}
+
+	public void setOmittedFailures(Long omittedFailures) {
+		this.omittedFailures = omittedFailures;
+	}
+
+	public List<BatchItemResultDTO> getFailures() {
+		return failures;
+	}
+
+	public void setFailures(List<BatchItemResultDTO> failures) {
+		this.failures = failures;
+	}
+}
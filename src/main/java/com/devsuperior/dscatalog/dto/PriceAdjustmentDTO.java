@@ -0,0 +1,75 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+/**
+ * Body of POST /products/price-adjustments: a filter, with the same fields
+ * as a product listing, and either a percentage or an absolute amount to
+ * apply to the price of every matching product.
+ */
+public class PriceAdjustmentDTO implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private Long categoryId;
+	private Double minPrice;
+	private Double maxPrice;
+	private String name;
+
+	private Double percent;
+	private Double amount;
+
+	public PriceAdjustmentDTO() {
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Long categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public Double getMinPrice() {
+		return minPrice;
+	}
+
+	public void setMinPrice(Double minPrice) {
+		this.minPrice = minPrice;
+	}
+
+	public Double getMaxPrice() {
+		return maxPrice;
+	}
+
+	public void setMaxPrice(Double maxPrice) {
+		this.maxPrice = maxPrice;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Double getPercent() {
+		return percent;
+	}
+
+	public void setPercent(Double percent) {
+		this.percent = percent;
+	}
+
+	public Double getAmount() {
+		return amount;
+	}
+
+	public void setAmount(Double amount) {
+		this.amount = amount;
+	}
+
+	public ProductFilterDTO toFilter() {
+		return new ProductFilterDTO(categoryId, minPrice, maxPrice, name);
+	}
+}
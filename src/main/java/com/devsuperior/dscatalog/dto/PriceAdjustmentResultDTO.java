@@ -0,0 +1,34 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+
+public class PriceAdjustmentResultDTO implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private Long updated;
+	private Integer chunks;
+
+	public PriceAdjustmentResultDTO() {
+	}
+
+	public PriceAdjustmentResultDTO(Long updated, Integer chunks) {
+		this.updated = updated;
+		this.chunks = chunks;
+	}
+
+	public Long getUpdated() {
+		return updated;
+	}
+
+	public void setUpdated(Long updated) {
+		this.updated = updated;
+	}
+
+	public Integer getChunks() {
+		return chunks;
+	}
+
+	public void setChunks(Integer chunks) {
+		this.chunks = chunks;
+	}
+}
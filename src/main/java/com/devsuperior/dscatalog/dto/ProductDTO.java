@@ -8,6 +8,7 @@ import java.util.Set;
 
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class ProductDTO implements Serializable {
 	private static final long serialVersionUID = 1L;
@@ -18,6 +19,9 @@ public class ProductDTO implements Serializable {
 	private Double price;
 	private String imgUrl;
 	private Instant date;
+
+	private Long version;
+	private Instant lastModified;
 	
 	private List<CategoryDTO> categories = new ArrayList<>();
 	
@@ -40,6 +44,8 @@ public class ProductDTO implements Serializable {
 		this.price = entity.getPrice();
 		this.imgUrl = entity.getImgUrl();
 		this.date = entity.getDate();
+		this.version = entity.getVersion();
+		this.lastModified = entity.getUpdatedAt() != null ? entity.getUpdatedAt() : entity.getCreatedAt();
 	}
 	
 	public ProductDTO(Product entity, Set<Category> categories) {
@@ -95,6 +101,24 @@ public class ProductDTO implements Serializable {
 		this.date = date;
 	}
 
+	@JsonIgnore
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	@JsonIgnore
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(Instant lastModified) {
+		this.lastModified = lastModified;
+	}
+
 	public List<CategoryDTO> getCategories() {
 		return categories;
 	}
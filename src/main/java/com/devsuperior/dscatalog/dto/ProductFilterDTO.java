@@ -0,0 +1,87 @@
+package com.devsuperior.dscatalog.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+public class ProductFilterDTO implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private Long categoryId;
+	private Double minPrice;
+	private Double maxPrice;
+	private String name;
+	private boolean includeDescendants;
+
+	public ProductFilterDTO() {
+	}
+
+	public ProductFilterDTO(Long categoryId, Double minPrice, Double maxPrice, String name) {
+		this.categoryId = categoryId;
+		this.minPrice = minPrice;
+		this.maxPrice = maxPrice;
+		this.name = name;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Long categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public Double getMinPrice() {
+		return minPrice;
+	}
+
+	public void setMinPrice(Double minPrice) {
+		this.minPrice = minPrice;
+	}
+
+	public Double getMaxPrice() {
+		return maxPrice;
+	}
+
+	public void setMaxPrice(Double maxPrice) {
+		this.maxPrice = maxPrice;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public boolean isIncludeDescendants() {
+		return includeDescendants;
+	}
+
+	public void setIncludeDescendants(boolean includeDescendants) {
+		this.includeDescendants = includeDescendants;
+	}
+
+	public boolean isEmpty() {
+		return categoryId == null && minPrice == null && maxPrice == null && (name == null || name.isEmpty());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(categoryId, minPrice, maxPrice, name, includeDescendants);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ProductFilterDTO other = (ProductFilterDTO) obj;
+		return Objects.equals(categoryId, other.categoryId) && Objects.equals(minPrice, other.minPrice)
+				&& Objects.equals(maxPrice, other.maxPrice) && Objects.equals(name, other.name)
+				&& includeDescendants == other.includeDescendants;
+	}
+}
@@ -5,15 +5,22 @@ import java.time.Instant;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "tb_category")
+@Table(name = "tb_category", indexes = @Index(name = "idx_category_path", columnList = "path"))
 public class Category implements Serializable {
 	private static final long serialVersionUID = 1L;
 
@@ -21,6 +28,23 @@ public class Category implements Serializable {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 	private String name;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "parent_id")
+	private Category parent;
+
+	/**
+	 * Materialized path of the ancestors, root first: "/" for a root and
+	 * "/1/7/" for a category under 7 under 1. The descendants of a category
+	 * are the rows whose path starts with its {@link #getSubtreePrefix()},
+	 * which the index on path answers as one range scan.
+	 */
+	private String path;
+
+	@Version
+	@ColumnDefault("0")
+	@Column(nullable = false)
+	private Long version;
 	
 	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
 	private Instant createdAt;
@@ -52,6 +76,30 @@ public class Category implements Serializable {
 		this.name = name;
 	}
 	
+	public Category getParent() {
+		return parent;
+	}
+
+	public void setParent(Category parent) {
+		this.parent = parent;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public String getSubtreePrefix() {
+		return (path == null ? "/" : path) + id + "/";
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
 	public Instant getCreatedAt() {
 		return createdAt;
 	}
@@ -0,0 +1,53 @@
+package com.devsuperior.dscatalog.entities;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Product count and price range of the products directly in a category,
+ * maintained by the product write paths so facet reads never aggregate
+ * tb_product_category. Rows are only changed through atomic UPDATE
+ * statements, hence no version.
+ */
+@Entity
+@Table(name = "tb_category_stats")
+public class CategoryStats implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	private Long categoryId;
+
+	@Column(nullable = false)
+	private Long productCount;
+
+	private Double minPrice;
+	private Double maxPrice;
+
+	public CategoryStats() {
+	}
+
+	public CategoryStats(Long categoryId) {
+		this.categoryId = categoryId;
+		this.productCount = 0L;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public Long getProductCount() {
+		return productCount;
+	}
+
+	public Double getMinPrice() {
+		return minPrice;
+	}
+
+	public Double getMaxPrice() {
+		return maxPrice;
+	}
+}
@@ -0,0 +1,125 @@
+package com.devsuperior.dscatalog.entities;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Read model of a product listing: one row per product with everything a
+ * listing shows, including its categories, so a listing page reads one
+ * table. Category filters go through the indexed links in
+ * ProductListingCategory. Written only by ProductListingService, which the
+ * product and category write paths call in their own transaction. The
+ * version and lastModified are copies of the product's, not a lock.
+ */
+@Entity
+@Table(name = "tb_product_listing", indexes = {
+	@Index(name = "idx_product_listing_name", columnList = "name"),
+	@Index(name = "idx_product_listing_price", columnList = "price") })
+public class ProductListing implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	private Long id;
+	private String name;
+
+	@Column(columnDefinition = "TEXT")
+	private String description;
+	private Double price;
+	private String imgUrl;
+
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant date;
+
+	private Long version;
+
+	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+	private Instant lastModified;
+
+	/**
+	 * The linked categories as JSON, in the shape ProductListingService
+	 * writes.
+	 */
+	@Column(columnDefinition = "TEXT")
+	private String categories;
+
+	public ProductListing() {
+	}
+
+	public ProductListing(Long id) {
+		this.id = id;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public void setPrice(Double price) {
+		this.price = price;
+	}
+
+	public String getImgUrl() {
+		return imgUrl;
+	}
+
+	public void setImgUrl(String imgUrl) {
+		this.imgUrl = imgUrl;
+	}
+
+	public Instant getDate() {
+		return date;
+	}
+
+	public void setDate(Instant date) {
+		this.date = date;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(Instant lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	public String getCategories() {
+		return categories;
+	}
+
+	public void setCategories(String categories) {
+		this.categories = categories;
+	}
+}
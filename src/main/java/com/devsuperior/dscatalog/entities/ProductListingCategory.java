@@ -0,0 +1,94 @@
+package com.devsuperior.dscatalog.entities;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Category membership of a listing row, kept apart from the row so category
+ * filters are index lookups: one link for each category the product is in
+ * (direct) and one for each ancestor of those categories. A category filter
+ * reads the direct links of the category, a subtree filter all of them.
+ * The primary key is (category_id, listing_id), so both filters are range
+ * scans of it; relinking a row looks its links up by listing_id. Written
+ * only by ProductListingService, together with the listing row.
+ */
+@Entity
+@IdClass(ProductListingCategory.Key.class)
+@Table(name = "tb_product_listing_category", indexes = @Index(name = "idx_product_listing_category_listing",
+		columnList = "listing_id"))
+public class ProductListingCategory implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@Column(name = "listing_id")
+	private Long listingId;
+
+	@Id
+	@Column(name = "category_id")
+	private Long categoryId;
+
+	@Column(nullable = false)
+	private boolean direct;
+
+	public ProductListingCategory() {
+	}
+
+	public ProductListingCategory(Long listingId, Long categoryId, boolean direct) {
+		this.listingId = listingId;
+		this.categoryId = categoryId;
+		this.direct = direct;
+	}
+
+	public Long getListingId() {
+		return listingId;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public boolean isDirect() {
+		return direct;
+	}
+
+	public void setDirect(boolean direct) {
+		this.direct = direct;
+	}
+
+	public static class Key implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private Long listingId;
+		private Long categoryId;
+
+		public Key() {
+		}
+
+		public Key(Long listingId, Long categoryId) {
+			this.listingId = listingId;
+			this.categoryId = categoryId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(listingId, categoryId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return Objects.equals(listingId, other.listingId) && Objects.equals(categoryId, other.categoryId);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.devsuperior.dscatalog.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every public service method as dscatalog.service and every
+ * repository call as dscatalog.repository, tagged with class, method and
+ * the exception thrown, if any. It wraps the caching advice, so cache hits
+ * are timed too.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MethodTimingAspect {
+
+	private final MeterRegistry registry;
+
+	public MethodTimingAspect(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Around("within(com.devsuperior.dscatalog.services..*) && execution(public * *(..))")
+	public Object timeService(ProceedingJoinPoint pjp) throws Throwable {
+		return time("dscatalog.service", pjp.getSignature().getDeclaringType().getSimpleName(), pjp);
+	}
+
+	@Around("this(org.springframework.data.repository.Repository)")
+	public Object timeRepository(ProceedingJoinPoint pjp) throws Throwable {
+		Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(pjp.getThis());
+		return time("dscatalog.repository", interfaces[0].getSimpleName(), pjp);
+	}
+
+	private Object time(String name, String className, ProceedingJoinPoint pjp) throws Throwable {
+		Timer.Sample sample = Timer.start(registry);
+		String exception = "none";
+		try {
+			return pjp.proceed();
+		}
+		catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		}
+		finally {
+			sample.stop(Timer.builder(name)
+					.tags("class", className, "method", pjp.getSignature().getName(), "exception", exception)
+					.register(registry));
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.devsuperior.dscatalog.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most SQL statements a controller or service method may run on its
+ * thread, checked by QueryBudgetAspect according to
+ * dscatalog.query-budget.mode (OFF, LOG or FAIL).
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+	int value();
+}
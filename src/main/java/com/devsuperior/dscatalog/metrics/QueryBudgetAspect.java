@@ -0,0 +1,26 @@
+package com.devsuperior.dscatalog.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+@Aspect
+public class QueryBudgetAspect {
+
+	private final QueryBudgetGuard guard;
+
+	public QueryBudgetAspect(QueryBudgetGuard guard) {
+		this.guard = guard;
+	}
+
+	@Around("@annotation(budget)")
+	public Object check(ProceedingJoinPoint pjp, QueryBudget budget) throws Throwable {
+		if (!guard.isEnabled()) {
+			return pjp.proceed();
+		}
+		long start = guard.start();
+		Object result = pjp.proceed();
+		guard.check(pjp.getSignature().toShortString(), budget.value(), start);
+		return result;
+	}
+}
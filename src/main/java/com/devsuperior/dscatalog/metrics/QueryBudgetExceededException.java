@@ -0,0 +1,9 @@
+package com.devsuperior.dscatalog.metrics;
+
+public class QueryBudgetExceededException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public QueryBudgetExceededException(String msg) {
+		super(msg);
+	}
+}
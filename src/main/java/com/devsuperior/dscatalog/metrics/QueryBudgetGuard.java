@@ -0,0 +1,63 @@
+package com.devsuperior.dscatalog.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the statements run since a starting point with a declared
+ * budget. Over budget it logs a warning or throws, listing the statements
+ * with how often each one repeated, which is what an N+1 looks like.
+ */
+public class QueryBudgetGuard {
+
+	public enum Mode {
+		OFF, LOG, FAIL
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(QueryBudgetGuard.class);
+
+	private final QueryCounter queryCounter;
+	private final Mode mode;
+
+	public QueryBudgetGuard(QueryCounter queryCounter, Mode mode) {
+		this.queryCounter = queryCounter;
+		this.mode = mode;
+	}
+
+	public boolean isEnabled() {
+		return mode != Mode.OFF;
+	}
+
+	public long start() {
+		return queryCounter.get();
+	}
+
+	public void check(String operation, int budget, long start) {
+		long queries = queryCounter.get() - start;
+		if (mode == Mode.OFF || queries <= budget) {
+			return;
+		}
+		String msg = describe(operation, budget, queries, queryCounter.statementsSince(start));
+		if (mode == Mode.FAIL) {
+			throw new QueryBudgetExceededException(msg);
+		}
+		log.warn(msg);
+	}
+
+	static String describe(String operation, int budget, long queries, List<String> statements) {
+		Map<String, Integer> repeats = new LinkedHashMap<>();
+		statements.forEach(sql -> repeats.merge(sql, 1, Integer::sum));
+		StringBuilder sb = new StringBuilder();
+		sb.append(operation).append(" ran ").append(queries).append(" SQL statements, budget is ").append(budget);
+		if (queries > statements.size()) {
+			sb.append(" (last ").append(statements.size()).append(" shown)");
+		}
+		repeats.forEach((sql, times) -> sb.append(System.lineSeparator()).append("  ").append(times).append("x ")
+				.append(sql));
+		return sb.toString();
+	}
+}
@@ -0,0 +1,55 @@
+package com.devsuperior.dscatalog.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records how many SQL statements each request ran on its own thread as
+ * dscatalog.http.queries, tagged like http.server.requests, and logs it at
+ * debug level. Work handed to async threads (the export stream) is not
+ * attributed to the request.
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+
+	private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+	private final QueryCounter queryCounter;
+	private final MeterRegistry registry;
+
+	public QueryCountFilter(QueryCounter queryCounter, MeterRegistry registry) {
+		this.queryCounter = queryCounter;
+		this.registry = registry;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		long before = queryCounter.get();
+		try {
+			chain.doFilter(request, response);
+		}
+		finally {
+			long queries = queryCounter.get() - before;
+			Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+			DistributionSummary.builder("dscatalog.http.queries")
+					.description("SQL statements per HTTP request")
+					.tags("method", request.getMethod(), "uri", uri, "status", String.valueOf(response.getStatus()))
+					.register(registry)
+					.record(queries);
+			log.debug("{} {} ran {} SQL statements", request.getMethod(), request.getRequestURI(), queries);
+		}
+	}
+}
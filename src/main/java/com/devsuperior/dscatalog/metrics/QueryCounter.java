@@ -0,0 +1,108 @@
+package com.devsuperior.dscatalog.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sees every SQL statement Hibernate prepares. Keeps a running total and
+ * the most recent statements per thread, so callers can take the
+ * difference around a unit of work, and counts statements by kind in
+ * dscatalog.sql.statements.
+ */
+public class QueryCounter implements StatementInspector {
+	private static final long serialVersionUID = 1L;
+
+	static final int RECENT = 64;
+
+	private static final ThreadLocal<ThreadStatements> STATEMENTS = ThreadLocal.withInitial(ThreadStatements::new);
+
+	private final transient Counter selects;
+	private final transient Counter inserts;
+	private final transient Counter updates;
+	private final transient Counter deletes;
+	private final transient Counter others;
+
+	public QueryCounter(MeterRegistry registry) {
+		selects = counter(registry, "select");
+		inserts = counter(registry, "insert");
+		updates = counter(registry, "update");
+		deletes = counter(registry, "delete");
+		others = counter(registry, "other");
+	}
+
+	@Override
+	public String inspect(String sql) {
+		STATEMENTS.get().add(sql);
+		counterFor(sql).increment();
+		return sql;
+	}
+
+	/**
+	 * Counts statements another thread ran on behalf of this one, such as
+	 * the query of a batch shared by several callers, as if this thread had
+	 * run them. The last of them are given; count may be larger. They are
+	 * not counted by kind again.
+	 */
+	public void attribute(long count, List<String> statements) {
+		ThreadStatements own = STATEMENTS.get();
+		own.count += count - statements.size();
+		statements.forEach(own::add);
+	}
+
+	public long get() {
+		return STATEMENTS.get().count;
+	}
+
+	/**
+	 * Statements this thread ran since get() returned the given value, up to
+	 * the last RECENT of them.
+	 */
+	public List<String> statementsSince(long since) {
+		ThreadStatements statements = STATEMENTS.get();
+		List<String> result = new ArrayList<>();
+		for (long i = Math.max(since, statements.count - RECENT); i < statements.count; i++) {
+			result.add(statements.recent[(int) (i % RECENT)]);
+		}
+		return result;
+	}
+
+	private Counter counterFor(String sql) {
+		String start = sql.stripLeading();
+		start = start.substring(0, Math.min(6, start.length())).toLowerCase(Locale.ROOT);
+		switch (start) {
+		case "select":
+			return selects;
+		case "insert":
+			return inserts;
+		case "update":
+			return updates;
+		case "delete":
+			return deletes;
+		default:
+			return others;
+		}
+	}
+
+	private static Counter counter(MeterRegistry registry, String type) {
+		return Counter.builder("dscatalog.sql.statements")
+				.description("SQL statements prepared by Hibernate")
+				.tag("type", type)
+				.register(registry);
+	}
+
+	private static class ThreadStatements {
+		private long count;
+		private final String[] recent = new String[RECENT];
+
+		private void add(String sql) {
+			recent[(int) (count % RECENT)] = sql;
+			count++;
+		}
+	}
+}
@@ -1,6 +1,17 @@
 package com.devsuperior.dscatalog.repositories;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.devsuperior.dscatalog.entities.Category;
@@ -8,4 +19,50 @@ import com.devsuperior.dscatalog.entities.Category;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
+	@Query("SELECT obj.id FROM Category obj")
+	List<Long> findAllIds();
+
+	@Query("SELECT obj.id FROM Category obj WHERE obj.id IN :ids")
+	List<Long> findExistingIds(Collection<Long> ids);
+
+	@Query("SELECT obj FROM Category obj")
+	Slice<Category> findSlice(Pageable pageable);
+
+	@Query("SELECT obj FROM Category obj WHERE obj.id > :id")
+	Slice<Category> findSliceAfterId(Long id, Pageable pageable);
+
+	@Query("SELECT obj FROM Category obj ORDER BY obj.name NULLS LAST, obj.id")
+	Slice<Category> findSliceByName(Pageable pageable);
+
+	@Query("SELECT obj FROM Category obj WHERE obj.name > :name OR (obj.name = :name AND obj.id > :id) "
+			+ "OR obj.name IS NULL ORDER BY obj.name NULLS LAST, obj.id")
+	Slice<Category> findSliceAfterName(String name, Long id, Pageable pageable);
+
+	@Query("SELECT obj FROM Category obj WHERE obj.name IS NULL AND obj.id > :id ORDER BY obj.id")
+	Slice<Category> findSliceAfterNullName(Long id, Pageable pageable);
+
+	/**
+	 * The category and its descendants in pre-order: sorting by the subtree
+	 * prefix puts every category right before its own descendants, siblings
+	 * in the string order of their ids.
+	 */
+	@Query("SELECT obj FROM Category obj WHERE obj.id = :id OR obj.path LIKE :prefix% "
+			+ "ORDER BY CONCAT(obj.path, obj.id, '/')")
+	List<Category> findSubtree(Long id, String prefix);
+
+	@Query("SELECT obj.id FROM Category obj WHERE obj.id = :id OR obj.path LIKE :prefix%")
+	List<Long> findSubtreeIds(Long id, String prefix);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT obj FROM Category obj WHERE obj.id IN :ids ORDER BY obj.id")
+	List<Category> findAllForUpdate(Collection<Long> ids);
+
+	/**
+	 * Rewrites the paths below a moved category. Bulk UPDATE, so version and
+	 * updatedAt are maintained here instead of by the entity.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Category obj SET obj.path = CONCAT(:newPrefix, SUBSTRING(obj.path, :keepFrom)), "
+			+ "obj.version = obj.version + 1, obj.updatedAt = :now WHERE obj.path LIKE :oldPrefix%")
+	int movePaths(String oldPrefix, String newPrefix, int keepFrom, Instant now);
 }
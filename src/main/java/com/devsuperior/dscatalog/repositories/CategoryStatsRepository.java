@@ -0,0 +1,73 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.devsuperior.dscatalog.dto.CategoryStatsDTO;
+import com.devsuperior.dscatalog.entities.CategoryStats;
+
+/**
+ * Counters are changed with single UPDATE statements, so concurrent writers
+ * never lose an increment. Only the recompute queries read
+ * tb_product_category, through its index on category_id.
+ */
+@Repository
+public interface CategoryStatsRepository extends JpaRepository<CategoryStats, Long> {
+
+	@Query("SELECT new com.devsuperior.dscatalog.dto.CategoryStatsDTO(c.id, c.name, s.productCount, s.minPrice, s.maxPrice) "
+			+ "FROM CategoryStats s, Category c WHERE c.id = s.categoryId ORDER BY c.id")
+	List<CategoryStatsDTO> findAllStats();
+
+	@Query("SELECT new com.devsuperior.dscatalog.dto.CategoryStatsDTO(c.id, c.name, s.productCount, s.minPrice, s.maxPrice) "
+			+ "FROM CategoryStats s, Category c WHERE c.id = s.categoryId AND c.parent.id = :parentId ORDER BY c.id")
+	List<CategoryStatsDTO> findStatsByParent(Long parentId);
+
+	@Modifying
+	@Query("UPDATE CategoryStats s SET s.productCount = s.productCount + :delta WHERE s.categoryId IN :categoryIds")
+	int addToCount(Collection<Long> categoryIds, long delta);
+
+	@Modifying
+	@Query("UPDATE CategoryStats s SET "
+			+ "s.minPrice = CASE WHEN s.minPrice IS NULL OR s.minPrice > :price THEN :price ELSE s.minPrice END, "
+			+ "s.maxPrice = CASE WHEN s.maxPrice IS NULL OR s.maxPrice < :price THEN :price ELSE s.maxPrice END "
+			+ "WHERE s.categoryId IN :categoryIds")
+	int widenRange(Collection<Long> categoryIds, Double price);
+
+	/**
+	 * Categories whose minimum or maximum is {@code price}, which may no
+	 * longer hold once a product at that price leaves them.
+	 */
+	@Query("SELECT s.categoryId FROM CategoryStats s WHERE s.categoryId IN :categoryIds "
+			+ "AND (s.minPrice = :price OR s.maxPrice = :price)")
+	List<Long> findBoundedBy(Collection<Long> categoryIds, Double price);
+
+	@Modifying
+	@Query(nativeQuery = true, value = "UPDATE tb_category_stats SET "
+			+ "product_count = (SELECT COUNT(*) FROM tb_product_category pc "
+			+ "WHERE pc.category_id = tb_category_stats.category_id), "
+			+ "min_price = (SELECT MIN(p.price) FROM tb_product_category pc INNER JOIN tb_product p ON p.id = pc.product_id "
+			+ "WHERE pc.category_id = tb_category_stats.category_id), "
+			+ "max_price = (SELECT MAX(p.price) FROM tb_product_category pc INNER JOIN tb_product p ON p.id = pc.product_id "
+			+ "WHERE pc.category_id = tb_category_stats.category_id) "
+			+ "WHERE category_id IN :categoryIds")
+	int recompute(Collection<Long> categoryIds);
+
+	@Modifying
+	@Query(nativeQuery = true, value = "DELETE FROM tb_category_stats")
+	int deleteAllRows();
+
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO tb_category_stats (category_id, product_count, min_price, max_price) "
+			+ "SELECT c.id, COUNT(p.id), MIN(p.price), MAX(p.price) FROM tb_category c "
+			+ "LEFT JOIN tb_product_category pc ON pc.category_id = c.id LEFT JOIN tb_product p ON p.id = pc.product_id "
+			+ "GROUP BY c.id")
+	int insertAllFromScratch();
+
+	@Query(nativeQuery = true, value = "SELECT DISTINCT category_id FROM tb_product_category WHERE product_id IN :productIds")
+	List<Long> findCategoryIdsOfProducts(Collection<Long> productIds);
+}
@@ -0,0 +1,43 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.devsuperior.dscatalog.entities.ProductListingCategory;
+
+@Repository
+public interface ProductListingCategoryRepository
+		extends JpaRepository<ProductListingCategory, ProductListingCategory.Key> {
+
+	@Query("SELECT obj FROM ProductListingCategory obj WHERE obj.listingId IN :listingIds")
+	List<ProductListingCategory> findByListingIds(Collection<Long> listingIds);
+
+	/**
+	 * The rows in the category itself, a chunk at a time in id order.
+	 */
+	@Query("SELECT obj.listingId FROM ProductListingCategory obj WHERE obj.categoryId = :categoryId "
+			+ "AND obj.direct = TRUE AND obj.listingId > :afterId ORDER BY obj.listingId")
+	List<Long> findDirectListingIdsAfter(Long categoryId, Long afterId, Pageable pageable);
+
+	/**
+	 * The rows anywhere in the category's subtree, a chunk at a time in id
+	 * order.
+	 */
+	@Query("SELECT obj.listingId FROM ProductListingCategory obj WHERE obj.categoryId = :categoryId "
+			+ "AND obj.listingId > :afterId ORDER BY obj.listingId")
+	List<Long> findListingIdsAfter(Long categoryId, Long afterId, Pageable pageable);
+
+	@Modifying
+	@Query("DELETE FROM ProductListingCategory obj WHERE obj.listingId IN :listingIds")
+	int deleteByListingIds(Collection<Long> listingIds);
+
+	@Modifying
+	@Query(nativeQuery = true, value = "DELETE FROM tb_product_listing_category")
+	int deleteAllRows();
+}
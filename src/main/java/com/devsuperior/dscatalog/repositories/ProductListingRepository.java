@@ -0,0 +1,30 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.time.Instant;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.devsuperior.dscatalog.entities.ProductListing;
+
+@Repository
+public interface ProductListingRepository extends JpaRepository<ProductListing, Long>, ProductListingRepositoryCustom {
+
+	@Modifying
+	@Query("DELETE FROM ProductListing obj WHERE obj.id IN :ids")
+	int deleteByIds(Collection<Long> ids);
+
+	@Modifying
+	@Query(nativeQuery = true, value = "DELETE FROM tb_product_listing")
+	int deleteAllRows();
+
+	/**
+	 * Mirrors ProductRepository.adjustPrices on the listing rows.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE ProductListing obj SET obj.price = obj.price * :factor + :amount, obj.version = obj.version + 1, "
+			+ "obj.lastModified = :now WHERE obj.id IN :ids")
+	int adjustPrices(Collection<Long> ids, double factor, double amount, Instant now);
+}
@@ -0,0 +1,19 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.util.Collection;
+
+import javax.persistence.Tuple;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.devsuperior.dscatalog.entities.ProductListing;
+
+public interface ProductListingRepositoryCustom {
+
+	Page<Tuple> findPage(Specification<ProductListing> spec, Pageable pageable, Collection<String> columns);
+
+	Slice<Tuple> findSlice(Specification<ProductListing> spec, Pageable pageable, Collection<String> columns);
+}
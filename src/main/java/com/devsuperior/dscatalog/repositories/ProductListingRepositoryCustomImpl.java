@@ -0,0 +1,102 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.devsuperior.dscatalog.entities.ProductListing;
+
+/**
+ * Reads the given columns of listing rows as tuples, each aliased by its
+ * attribute name, so results are never hydrated into managed entities and
+ * columns the caller does not show, such as the description or the
+ * categories, are not read at all. Ties in the requested order are broken
+ * by id, so pages are stable.
+ */
+public class ProductListingRepositoryCustomImpl implements ProductListingRepositoryCustom {
+
+	private final EntityManager entityManager;
+
+	public ProductListingRepositoryCustomImpl(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	@Override
+	public Page<Tuple> findPage(Specification<ProductListing> spec, Pageable pageable, Collection<String> columns) {
+		TypedQuery<Tuple> query = select(spec, pageable, columns);
+		if (pageable.isUnpaged()) {
+			return new PageImpl<>(query.getResultList());
+		}
+		query.setFirstResult((int) pageable.getOffset());
+		query.setMaxResults(pageable.getPageSize());
+		List<Tuple> content = query.getResultList();
+		if (pageable.getOffset() == 0 && content.size() < pageable.getPageSize()) {
+			return new PageImpl<>(content, pageable, content.size());
+		}
+		return new PageImpl<>(content, pageable, count(spec));
+	}
+
+	@Override
+	public Slice<Tuple> findSlice(Specification<ProductListing> spec, Pageable pageable, Collection<String> columns) {
+		TypedQuery<Tuple> query = select(spec, pageable, columns);
+		if (pageable.isUnpaged()) {
+			return new SliceImpl<>(query.getResultList());
+		}
+		query.setFirstResult((int) pageable.getOffset());
+		query.setMaxResults(pageable.getPageSize() + 1);
+		List<Tuple> content = query.getResultList();
+		boolean hasNext = content.size() > pageable.getPageSize();
+		return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+	}
+
+	private TypedQuery<Tuple> select(Specification<ProductListing> spec, Pageable pageable, Collection<String> columns) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<ProductListing> root = query.from(ProductListing.class);
+		List<Selection<?>> selections = new ArrayList<>(columns.size());
+		for (String column : columns) {
+			selections.add(root.get(column).alias(column));
+		}
+		query.multiselect(selections);
+		Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		List<Order> orders = new ArrayList<>(QueryUtils.toOrders(pageable.getSort(), root, cb));
+		if (pageable.getSort().getOrderFor("id") == null) {
+			orders.add(cb.asc(root.get("id")));
+		}
+		query.orderBy(orders);
+		return entityManager.createQuery(query);
+	}
+
+	private long count(Specification<ProductListing> spec) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<ProductListing> root = query.from(ProductListing.class);
+		Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		query.select(cb.count(root));
+		return entityManager.createQuery(query).getSingleResult();
+	}
+}
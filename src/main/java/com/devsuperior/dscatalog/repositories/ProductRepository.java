@@ -1,11 +1,80 @@
 package com.devsuperior.dscatalog.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.devsuperior.dscatalog.entities.Product;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+		ProductRepositoryCustom {
+
+	@EntityGraph(attributePaths = "categories")
+	Optional<Product> findWithCategoriesById(Long id);
+
+	@EntityGraph(attributePaths = "categories")
+	List<Product> findWithCategoriesByIdIn(Collection<Long> ids);
+
+	@Query("SELECT obj FROM Product obj LEFT JOIN FETCH obj.categories WHERE obj IN :products")
+	List<Product> findProductsWithCategories(List<Product> products);
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT obj FROM Product obj ORDER BY obj.id")
+	Stream<Product> streamAll();
+
+	@Query("SELECT obj FROM Product obj")
+	Slice<Product> findSlice(Pageable pageable);
+
+	@Query("SELECT obj FROM Product obj WHERE obj.id > :id")
+	Slice<Product> findSliceAfterId(Long id, Pageable pageable);
+
+	/**
+	 * Keyset pages by name or price order themselves, rows without a value
+	 * last, so the position of null does not depend on the database.
+	 */
+	@Query("SELECT obj FROM Product obj ORDER BY obj.name NULLS LAST, obj.id")
+	Slice<Product> findSliceByName(Pageable pageable);
+
+	@Query("SELECT obj FROM Product obj WHERE obj.name > :name OR (obj.name = :name AND obj.id > :id) "
+			+ "OR obj.name IS NULL ORDER BY obj.name NULLS LAST, obj.id")
+	Slice<Product> findSliceAfterName(String name, Long id, Pageable pageable);
+
+	@Query("SELECT obj FROM Product obj WHERE obj.name IS NULL AND obj.id > :id ORDER BY obj.id")
+	Slice<Product> findSliceAfterNullName(Long id, Pageable pageable);
+
+	@Query("SELECT obj FROM Product obj ORDER BY obj.price NULLS LAST, obj.id")
+	Slice<Product> findSliceByPrice(Pageable pageable);
+
+	@Query("SELECT obj FROM Product obj WHERE obj.price > :price OR (obj.price = :price AND obj.id > :id) "
+			+ "OR obj.price IS NULL ORDER BY obj.price NULLS LAST, obj.id")
+	Slice<Product> findSliceAfterPrice(Double price, Long id, Pageable pageable);
+
+	@Query("SELECT obj FROM Product obj WHERE obj.price IS NULL AND obj.id > :id ORDER BY obj.id")
+	Slice<Product> findSliceAfterNullPrice(Long id, Pageable pageable);
 
+	/**
+	 * Bulk UPDATE, so it bypasses the persistence context and entity
+	 * callbacks; version and updatedAt are maintained here instead.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Product obj SET obj.price = obj.price * :factor + :amount, obj.version = obj.version + 1, "
+			+ "obj.updatedAt = :now WHERE obj.id IN :ids")
+	int adjustPrices(Collection<Long> ids, double factor, double amount, Instant now);
 }
@@ -0,0 +1,12 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.devsuperior.dscatalog.entities.Product;
+
+public interface ProductRepositoryCustom {
+
+	List<Long> findIdsAfter(Specification<Product> spec, Long afterId, int limit);
+}
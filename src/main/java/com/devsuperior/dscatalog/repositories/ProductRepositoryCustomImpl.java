@@ -0,0 +1,46 @@
+package com.devsuperior.dscatalog.repositories;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.devsuperior.dscatalog.entities.Product;
+
+/**
+ * Walks the products matching a specification by primary key, which
+ * Spring Data cannot do without paging by offset.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+	private final EntityManager entityManager;
+
+	public ProductRepositoryCustomImpl(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	/**
+	 * Ids of the matching products after {@code afterId}, in id order, so a
+	 * caller can walk a filter in bounded chunks by primary key.
+	 */
+	@Override
+	public List<Long> findIdsAfter(Specification<Product> spec, Long afterId, int limit) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Product> root = query.from(Product.class);
+		Predicate predicate = cb.greaterThan(root.get("id"), afterId);
+		if (spec != null) {
+			Predicate filter = spec.toPredicate(root, query, cb);
+			if (filter != null) {
+				predicate = cb.and(predicate, filter);
+			}
+		}
+		query.select(root.get("id")).where(predicate).orderBy(cb.asc(root.get("id")));
+		return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+	}
+}
@@ -0,0 +1,92 @@
+package com.devsuperior.dscatalog.repositories;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.entities.ProductListing;
+import com.devsuperior.dscatalog.entities.ProductListingCategory;
+
+/**
+ * Filters for product listings. Each one returns null when its argument is
+ * absent, so only the predicates actually requested reach the SQL. The
+ * category filter is a subquery on the join table rather than a join, so
+ * products are never duplicated and paging stays in the database. Price
+ * and name filters apply to products and listing rows alike; the listing
+ * category filters are subqueries on the listing's category links, which
+ * the index on category id answers.
+ */
+public class ProductSpecifications {
+
+	private ProductSpecifications() {
+	}
+
+	public static Specification<Product> hasCategory(Long categoryId) {
+		if (categoryId == null) {
+			return null;
+		}
+		return (root, query, cb) -> {
+			Subquery<Long> sub = query.subquery(Long.class);
+			Root<Product> product = sub.from(Product.class);
+			Join<Product, Category> category = product.join("categories");
+			sub.select(product.get("id")).where(cb.equal(category.get("id"), categoryId));
+			return root.get("id").in(sub);
+		};
+	}
+
+	public static Specification<ProductListing> listedInCategory(Long categoryId) {
+		if (categoryId == null) {
+			return null;
+		}
+		return listedIn(categoryId, true);
+	}
+
+	public static Specification<ProductListing> listedInCategoryTree(Long categoryId) {
+		return listedIn(categoryId, false);
+	}
+
+	private static Specification<ProductListing> listedIn(Long categoryId, boolean direct) {
+		return (root, query, cb) -> {
+			Subquery<Long> sub = query.subquery(Long.class);
+			Root<ProductListingCategory> link = sub.from(ProductListingCategory.class);
+			Predicate inCategory = cb.equal(link.get("categoryId"), categoryId);
+			sub.select(link.get("listingId"))
+					.where(direct ? cb.and(inCategory, cb.isTrue(link.get("direct"))) : inCategory);
+			return root.get("id").in(sub);
+		};
+	}
+
+	public static <T> Specification<T> hasId(Long id) {
+		return (root, query, cb) -> cb.equal(root.get("id"), id);
+	}
+
+	public static <T> Specification<T> priceAtLeast(Double minPrice) {
+		if (minPrice == null) {
+			return null;
+		}
+		return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+	}
+
+	public static <T> Specification<T> priceAtMost(Double maxPrice) {
+		if (maxPrice == null) {
+			return null;
+		}
+		return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+	}
+
+	/**
+	 * Case-sensitive prefix match, which an index on name can answer.
+	 */
+	public static <T> Specification<T> nameStartsWith(String name) {
+		if (name == null || name.isEmpty()) {
+			return null;
+		}
+		String pattern = name.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+		return (root, query, cb) -> cb.like(root.get("name"), pattern, '\\');
+	}
+}
@@ -0,0 +1,28 @@
+package com.devsuperior.dscatalog.resources;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.devsuperior.dscatalog.dto.CacheStatsDTO;
+import com.devsuperior.dscatalog.services.CacheService;
+
+@RestController
+@RequestMapping(value = "/caches")
+public class CacheResource {
+
+	private CacheService service;
+
+	public CacheResource(CacheService service) {
+		this.service = service;
+	}
+
+	@GetMapping
+	public ResponseEntity<List<CacheStatsDTO>> findAll() {
+		List<CacheStatsDTO> list = service.findAllStats();
+		return ResponseEntity.ok().body(list);
+	}
+}
@@ -1,12 +1,14 @@
 package com.devsuperior.dscatalog.resources;
 
 import java.net.URI;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,12 +17,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CategoryStatsDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+import com.devsuperior.dscatalog.metrics.QueryBudget;
 import com.devsuperior.dscatalog.services.CategoryService;
+import com.devsuperior.dscatalog.services.CategoryStatsService;
+import com.devsuperior.dscatalog.services.exceptions.PreconditionFailedException;
+import com.fasterxml.jackson.databind.util.RawValue;
 
 @RestController
 @RequestMapping(value = "/categories")
@@ -28,22 +37,69 @@ public class CategoryResource {
 
 	private CategoryService service;
 
-    public CategoryResource(CategoryService service) {
+	private CategoryStatsService statsService;
+
+	private JsonFragmentCache fragments;
+
+    public CategoryResource(CategoryService service, CategoryStatsService statsService, JsonFragmentCache fragments) {
         this.service = service;
+        this.statsService = statsService;
+        this.fragments = fragments;
     }
 
     @GetMapping
-	public ResponseEntity<Page<CategoryDTO>> findAll(Pageable pageable) {
+    @QueryBudget(2)
+	public ResponseEntity<Page<RawValue>> findAll(Pageable pageable) {
 				
 		Page<CategoryDTO> list = service.findAllPaged(pageable);
 		
-		return ResponseEntity.ok().body(list);
+		return new Validators().categories(list).with(list.getNumber()).with(list.getSize())
+				.with(list.getTotalElements()).ok(list.map(fragments::category));
+	}
+
+	@GetMapping(params = "after")
+	@QueryBudget(1)
+	public ResponseEntity<CursorPageDTO<CategoryDTO>> findAllByCursor(@RequestParam String after, Pageable pageable) {
+		CursorPageDTO<CategoryDTO> list = service.findAllByCursor(after, pageable);
+		return new Validators().categories(list.getContent()).with(list.getSize()).with(list.getNext()).ok(list);
+	}
+
+	/**
+	 * Product count and price range of each category, or of the direct
+	 * children of parentId. Counts cover products linked to the category
+	 * itself, not to its descendants.
+	 */
+	@GetMapping(value = "/stats")
+	@QueryBudget(1)
+	public ResponseEntity<List<CategoryStatsDTO>> findStats(@RequestParam(required = false) Long parentId) {
+		return ResponseEntity.ok().body(statsService.findAll(parentId));
+	}
+
+	@PostMapping(value = "/stats/recompute")
+	public ResponseEntity<Void> recomputeStats() {
+		statsService.recomputeAll();
+		return ResponseEntity.noContent().build();
 	}
 
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id) {
+	@QueryBudget(1)
+	public ResponseEntity<RawValue> findById(@PathVariable Long id) {
 		CategoryDTO dto = service.findById(id);
-		return ResponseEntity.ok().body(dto);
+		return new Validators().category(dto).ok(fragments.category(dto));
+	}
+	
+	@GetMapping(value = "/{id}/subtree")
+	@QueryBudget(2)
+	public ResponseEntity<List<CategoryDTO>> findSubtree(@PathVariable Long id) {
+		List<CategoryDTO> list = service.findSubtree(id);
+		return new Validators().categories(list).ok(list);
+	}
+
+	@GetMapping(value = "/{id}/breadcrumbs")
+	@QueryBudget(2)
+	public ResponseEntity<List<CategoryDTO>> findBreadcrumbs(@PathVariable Long id) {
+		List<CategoryDTO> list = service.findBreadcrumbs(id);
+		return new Validators().categories(list).ok(list);
 	}
 	
 	@PostMapping
@@ -55,8 +111,27 @@ public class CategoryResource {
 	}
 
 	@PutMapping(value = "/{id}")
-	public ResponseEntity<CategoryDTO> update(@PathVariable Long id, @RequestBody CategoryDTO dto) {
-		dto = service.update(id, dto);
+	public ResponseEntity<CategoryDTO> update(@PathVariable Long id, @RequestBody CategoryDTO dto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Long expectedVersion = null;
+		if (ifMatch != null) {
+			CategoryDTO current = service.findById(id);
+			if (!new Validators().category(current).matches(ifMatch)) {
+				throw new PreconditionFailedException("Category " + id + " does not match If-Match");
+			}
+			expectedVersion = current.getVersion();
+		}
+		dto = service.update(id, dto, expectedVersion);
+		return ResponseEntity.ok().body(dto);
+	}
+
+	/**
+	 * Only parentId is read from the body; null moves the category to the
+	 * root.
+	 */
+	@PutMapping(value = "/{id}/parent")
+	public ResponseEntity<CategoryDTO> move(@PathVariable Long id, @RequestBody CategoryDTO dto) {
+		dto = service.move(id, dto.getParentId());
 		return ResponseEntity.ok().body(dto);
 	}
 
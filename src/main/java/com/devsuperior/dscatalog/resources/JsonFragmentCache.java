@@ -0,0 +1,145 @@
+package com.devsuperior.dscatalog.resources;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.config.CacheConfig;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+/**
+ * The JSON of single products and categories, kept with its UTF-8 encoding
+ * so that a response copies it into the output as a raw value instead of
+ * serializing the DTO again. A fragment remembers the row versions it was
+ * written from: the product's, and the id and version of every embedded
+ * category. These are the versions behind the ETag. A DTO with other
+ * versions gets a new fragment, so a renamed or moved category never
+ * leaves stale products behind. Product and category writes also evict
+ * the fragments of the rows they change.
+ */
+@Component
+public class JsonFragmentCache {
+
+	private final Cache products;
+
+	private final Cache categories;
+
+	private final ObjectWriter writer;
+
+	public JsonFragmentCache(CacheManager cacheManager, ObjectMapper objectMapper) {
+		this.products = cacheManager.getCache(CacheConfig.PRODUCT_JSON);
+		this.categories = cacheManager.getCache(CacheConfig.CATEGORY_JSON);
+		this.writer = objectMapper.writer();
+	}
+
+	/**
+	 * The product with or without its categories, as the DTO carries them.
+	 * Both forms are cached side by side.
+	 */
+	public RawValue product(ProductDTO dto) {
+		boolean withCategories = !dto.getCategories().isEmpty();
+		ProductFragments cached = products.get(dto.getId(), ProductFragments.class);
+		Fragment fragment = cached == null ? null : cached.get(withCategories);
+		if (fragment != null && fragment.matches(dto)) {
+			return fragment.json;
+		}
+		fragment = new Fragment(versionsOf(dto), write(dto));
+		products.put(dto.getId(), cached == null ? new ProductFragments(null, null).with(withCategories, fragment)
+				: cached.with(withCategories, fragment));
+		return fragment.json;
+	}
+
+	public RawValue category(CategoryDTO dto) {
+		Fragment fragment = categories.get(dto.getId(), Fragment.class);
+		if (fragment != null && fragment.matches(dto.getVersion())) {
+			return fragment.json;
+		}
+		fragment = new Fragment(Collections.singletonList(dto.getVersion()), write(dto));
+		categories.put(dto.getId(), fragment);
+		return fragment.json;
+	}
+
+	private RawValue write(Object dto) {
+		try {
+			SerializedString json = new SerializedString(writer.writeValueAsString(dto));
+			json.asUnquotedUTF8();
+			return new RawValue(json);
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not write " + dto, e);
+		}
+	}
+
+	private static List<Long> versionsOf(ProductDTO dto) {
+		List<Long> versions = new ArrayList<>(1 + 2 * dto.getCategories().size());
+		versions.add(dto.getVersion());
+		for (CategoryDTO category : dto.getCategories()) {
+			versions.add(category.getId());
+			versions.add(category.getVersion());
+		}
+		return versions;
+	}
+
+	private static final class ProductFragments {
+
+		private final Fragment withoutCategories;
+
+		private final Fragment withCategories;
+
+		private ProductFragments(Fragment withoutCategories, Fragment withCategories) {
+			this.withoutCategories = withoutCategories;
+			this.withCategories = withCategories;
+		}
+
+		private Fragment get(boolean categories) {
+			return categories ? withCategories : withoutCategories;
+		}
+
+		private ProductFragments with(boolean categories, Fragment fragment) {
+			return categories ? new ProductFragments(withoutCategories, fragment)
+					: new ProductFragments(fragment, withCategories);
+		}
+	}
+
+	private static final class Fragment {
+
+		private final List<Long> versions;
+
+		private final RawValue json;
+
+		private Fragment(List<Long> versions, RawValue json) {
+			this.versions = versions;
+			this.json = json;
+		}
+
+		private boolean matches(Long version) {
+			return versions.size() == 1 && Objects.equals(versions.get(0), version);
+		}
+
+		private boolean matches(ProductDTO dto) {
+			if (versions.size() != 1 + 2 * dto.getCategories().size()
+					|| !Objects.equals(versions.get(0), dto.getVersion())) {
+				return false;
+			}
+			int i = 1;
+			for (CategoryDTO category : dto.getCategories()) {
+				if (!Objects.equals(versions.get(i++), category.getId())
+						|| !Objects.equals(versions.get(i++), category.getVersion())) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -1,46 +1,193 @@
 package com.devsuperior.dscatalog.resources;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
+import com.devsuperior.dscatalog.dto.FacetResultDTO;
+import com.devsuperior.dscatalog.dto.ImportResultDTO;
+import com.devsuperior.dscatalog.dto.PriceAdjustmentDTO;
+import com.devsuperior.dscatalog.dto.PriceAdjustmentResultDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.dto.ProductPatchDTO;
+import com.devsuperior.dscatalog.metrics.QueryBudget;
+import com.devsuperior.dscatalog.services.CountMode;
+import com.devsuperior.dscatalog.services.ProductBatchService;
+import com.devsuperior.dscatalog.services.ProductExportService;
+import com.devsuperior.dscatalog.services.ProductFacetService;
+import com.devsuperior.dscatalog.services.ProductFields;
+import com.devsuperior.dscatalog.services.ProductImportService;
+import com.devsuperior.dscatalog.services.ProductPriceService;
+import com.devsuperior.dscatalog.services.ProductSearchService;
 import com.devsuperior.dscatalog.services.ProductService;
+import com.devsuperior.dscatalog.services.exceptions.PreconditionFailedException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 
 @RestController
 @RequestMapping(value = "/products")
 public class ProductResource {
 
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
 	@Autowired
 	private ProductService service;
+
+	@Autowired
+	private ProductBatchService batchService;
+
+	@Autowired
+	private ProductExportService exportService;
+
+	@Autowired
+	private ProductImportService importService;
+
+	@Autowired
+	private ProductSearchService searchService;
+
+	@Autowired
+	private ProductPriceService priceService;
+
+	@Autowired
+	private ProductFacetService facetService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JsonFragmentCache fragments;
 	
 	@GetMapping
-	public ResponseEntity<Page<ProductDTO>> findAll(Pageable pageable) {
+	@QueryBudget(4)
+	public ResponseEntity<Slice<?>> findAll(
+			@RequestParam(value = "withCategories", defaultValue = "false") boolean withCategories,
+			@RequestParam(value = "count", defaultValue = "EXACT") CountMode count,
+			@RequestParam(value = "categoryId", required = false) Long categoryId,
+			@RequestParam(value = "includeDescendants", defaultValue = "false") boolean includeDescendants,
+			@RequestParam(value = "minPrice", required = false) Double minPrice,
+			@RequestParam(value = "maxPrice", required = false) Double maxPrice,
+			@RequestParam(value = "name", required = false) String name,
+			@RequestParam(value = "fields", required = false) String fields,
+			Pageable pageable) {
 				
-		Page<ProductDTO> list = service.findAllPaged(pageable);
+		ProductFilterDTO filter = new ProductFilterDTO(categoryId, minPrice, maxPrice, name);
+		filter.setIncludeDescendants(includeDescendants);
+		ProductFields selected = ProductFields.parse(fields, withCategories);
+		Slice<ProductDTO> list = service.findAllPaged(filter, pageable, count, selected);
 		
+		Validators validators = new Validators().products(list).with(list.getNumber()).with(list.getSize())
+				.with(list.hasNext()).with(selected);
+		if (list instanceof Page) {
+			validators.with(((Page<ProductDTO>) list).getTotalElements());
+		}
+		return validators.ok(isSparse(fields) ? list.map(dto -> sparse(dto, selected)) : list.map(fragments::product));
+	}
+
+	/**
+	 * The products with the given ids, in that order; unknown ids are left
+	 * out. The lookups are batched with the concurrent GET /products/{id}:
+	 * one query per batch, so up to five for the 500 ids allowed.
+	 */
+	@GetMapping(params = "ids")
+	@QueryBudget(5)
+	public ResponseEntity<List<RawValue>> findAllById(@RequestParam List<Long> ids) {
+		List<ProductDTO> list = service.findAllById(ids);
+		return new Validators().products(list).ok(list.stream().map(fragments::product).collect(Collectors.toList()));
+	}
+
+	@GetMapping(params = "after")
+	@QueryBudget(1)
+	public ResponseEntity<CursorPageDTO<ProductDTO>> findAllByCursor(@RequestParam String after, Pageable pageable) {
+		CursorPageDTO<ProductDTO> list = service.findAllByCursor(after, pageable);
+		return new Validators().products(list.getContent()).with(list.getSize()).with(list.getNext()).ok(list);
+	}
+
+	@GetMapping(value = "/search")
+	@QueryBudget(0)
+	public ResponseEntity<Page<ProductDTO>> search(
+			@RequestParam(value = "q") String query,
+			@RequestParam(value = "categoryId", required = false) Long categoryId,
+			@RequestParam(value = "minPrice", required = false) Double minPrice,
+			@RequestParam(value = "maxPrice", required = false) Double maxPrice,
+			Pageable pageable) {
+		Page<ProductDTO> list = searchService.search(query, categoryId, minPrice, maxPrice, pageable);
 		return ResponseEntity.ok().body(list);
 	}
 
+	/**
+	 * Products in every given category (categoryId may repeat) within the
+	 * price range, with facet counts, answered from memory.
+	 */
+	@GetMapping(value = "/facets")
+	@QueryBudget(0)
+	public ResponseEntity<FacetResultDTO> facets(
+			@RequestParam(value = "categoryId", required = false) Set<Long> categoryIds,
+			@RequestParam(value = "minPrice", required = false) Double minPrice,
+			@RequestParam(value = "maxPrice", required = false) Double maxPrice,
+			Pageable pageable) {
+		FacetResultDTO result = facetService.search(categoryIds, minPrice, maxPrice, pageable);
+		return ResponseEntity.ok().body(result);
+	}
+
+	@GetMapping(value = "/export")
+	public ResponseEntity<StreamingResponseBody> export() {
+		ObjectWriter writer = objectMapper.writerFor(ProductDTO.class);
+		StreamingResponseBody body = out -> exportService.exportAll(dto -> {
+			try {
+				out.write(writer.writeValueAsBytes(dto));
+				out.write('\n');
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		return ResponseEntity.ok().contentType(NDJSON).body(body);
+	}
+
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<ProductDTO> findById(@PathVariable Long id) {
+	@QueryBudget(1)
+	public ResponseEntity<?> findById(@PathVariable Long id,
+			@RequestParam(value = "fields", required = false) String fields) {
+		if (isSparse(fields)) {
+			ProductFields selected = ProductFields.parse(fields, false);
+			ProductDTO dto = service.findById(id, selected);
+			return new Validators().product(dto).with(selected).ok(sparse(dto, selected));
+		}
 		ProductDTO dto = service.findById(id);
-		return ResponseEntity.ok().body(dto);
+		return new Validators().product(dto).ok(fragments.product(dto));
 	}
 	
 	@PostMapping
@@ -51,15 +198,72 @@ public class ProductResource {
 		return ResponseEntity.created(uri).body(dto);
 	}
 
+	@PostMapping(value = "/batch")
+	public ResponseEntity<List<BatchItemResultDTO>> saveAll(@RequestBody List<ProductDTO> dtos) {
+		List<BatchItemResultDTO> list = batchService.saveAll(dtos);
+		return ResponseEntity.ok().body(list);
+	}
+
+	@PostMapping(value = "/import", consumes = "application/x-ndjson")
+	public ResponseEntity<ImportResultDTO> importNdjson(InputStream body) throws IOException {
+		ImportResultDTO result = importService.importNdjson(body);
+		return ResponseEntity.ok().body(result);
+	}
+
+	@PostMapping(value = "/import", consumes = "text/csv")
+	public ResponseEntity<ImportResultDTO> importCsv(InputStream body) throws IOException {
+		ImportResultDTO result = importService.importCsv(body);
+		return ResponseEntity.ok().body(result);
+	}
+
+	@PostMapping(value = "/price-adjustments")
+	public ResponseEntity<PriceAdjustmentResultDTO> adjustPrices(@RequestBody PriceAdjustmentDTO dto) {
+		PriceAdjustmentResultDTO result = priceService.adjust(dto);
+		return ResponseEntity.ok().body(result);
+	}
+
 	@PutMapping(value = "/{id}")
-	public ResponseEntity<ProductDTO> update(@PathVariable Long id, @RequestBody ProductDTO dto) {
-		dto = service.update(id, dto);
+	public ResponseEntity<ProductDTO> update(@PathVariable Long id, @RequestBody ProductDTO dto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		dto = service.update(id, dto, expectedVersion(id, ifMatch));
 		return ResponseEntity.ok().body(dto);
 	}
 
+	@PatchMapping(value = "/{id}")
+	public ResponseEntity<ProductDTO> patch(@PathVariable Long id, @RequestBody ProductPatchDTO dto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		ProductDTO result = service.patch(id, dto, expectedVersion(id, ifMatch));
+		return ResponseEntity.ok().body(result);
+	}
+
 	@DeleteMapping(value = "/{id}")
 	public ResponseEntity<Void> delete(@PathVariable Long id) {
 		service.delete(id);
 		return ResponseEntity.noContent().build();
 	}
-} 
+
+	private Long expectedVersion(Long id, String ifMatch) {
+		if (ifMatch == null) {
+			return null;
+		}
+		ProductDTO current = service.findById(id);
+		if (!new Validators().product(current).matches(ifMatch)) {
+			throw new PreconditionFailedException("Product " + id + " does not match If-Match");
+		}
+		return current.getVersion();
+	}
+
+	private static boolean isSparse(String fields) {
+		return fields != null && !fields.isBlank();
+	}
+
+	/**
+	 * The JSON of a product reduced to the requested fields, so the ones
+	 * that were not read are left out rather than sent as null.
+	 */
+	private JsonNode sparse(ProductDTO dto, ProductFields fields) {
+		ObjectNode node = objectMapper.valueToTree(dto);
+		node.retain(fields.getNames());
+		return node;
+	}
+}
@@ -0,0 +1,102 @@
+package com.devsuperior.dscatalog.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+
+/**
+ * Builds a strong ETag from the ids and row versions behind a response,
+ * including those of embedded categories. Responses for a single product
+ * or category also get a Last-Modified from its timestamps. Collections
+ * get the ETag only: the newest timestamp of a page does not change when a
+ * row leaves it, so If-Modified-Since would answer 304 for a changed page.
+ * For GET requests Spring answers a matching If-None-Match or
+ * If-Modified-Since with 304 before the body is serialized. Last-Modified
+ * is left out when any row predates timestamp tracking. PUT handlers check
+ * If-Match against the same tag.
+ */
+final class Validators {
+
+	private final StringBuilder versions = new StringBuilder();
+	private Instant lastModified;
+	private boolean lastModifiedKnown = true;
+	private boolean collection;
+
+	Validators product(ProductDTO dto) {
+		versions.append('p').append(dto.getId()).append(':').append(dto.getVersion()).append(';');
+		modifiedAt(dto.getLastModified());
+		dto.getCategories().forEach(this::category);
+		return this;
+	}
+
+	Validators products(Iterable<ProductDTO> dtos) {
+		collection = true;
+		dtos.forEach(this::product);
+		return this;
+	}
+
+	Validators category(CategoryDTO dto) {
+		versions.append('c').append(dto.getId()).append(':').append(dto.getVersion()).append(';');
+		modifiedAt(dto.getLastModified());
+		return this;
+	}
+
+	Validators categories(Iterable<CategoryDTO> dtos) {
+		collection = true;
+		dtos.forEach(this::category);
+		return this;
+	}
+
+	/**
+	 * Anything else the representation depends on, such as page metadata.
+	 */
+	Validators with(Object part) {
+		versions.append(part).append(';');
+		return this;
+	}
+
+	/**
+	 * Evaluates an If-Match header against the current representation. Weak
+	 * tags never match, as RFC 7232 requires strong comparison here.
+	 */
+	boolean matches(String ifMatch) {
+		String tag = tag();
+		for (String candidate : ifMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.equals("*")) {
+				return true;
+			}
+			if (candidate.length() > 1 && candidate.startsWith("\"") && candidate.endsWith("\"")
+					&& candidate.substring(1, candidate.length() - 1).equals(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	<T> ResponseEntity<T> ok(T body) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(tag());
+		if (!collection && lastModifiedKnown && lastModified != null) {
+			builder.lastModified(lastModified);
+		}
+		return builder.body(body);
+	}
+
+	private String tag() {
+		return DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void modifiedAt(Instant instant) {
+		if (instant == null) {
+			lastModifiedKnown = false;
+		}
+		else if (lastModified == null || instant.isAfter(lastModified)) {
+			lastModified = instant;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.devsuperior.dscatalog.metrics.QueryCounter;
+
+/**
+ * Collects the keys asked for by concurrent callers and resolves them
+ * together: a batch is dispatched once it holds maxBatchSize keys, or when
+ * the window that started with its first key has passed. The batch
+ * function gets the distinct keys and returns the values it found; a
+ * caller whose key is missing from that map gets null. Batches run on the
+ * loader's own threads while the callers wait. With a QueryCounter, the
+ * statements of a batch are counted on the thread of every caller it
+ * served, so query budgets and per-request metrics still see them.
+ */
+public class BatchLoader<K, V> {
+
+	private final String name;
+
+	private final Function<Set<K>, Map<K, V>> batchFunction;
+
+	private final QueryCounter queryCounter;
+
+	private final int maxBatchSize;
+
+	private final long windowNanos;
+
+	private final ScheduledExecutorService executor;
+
+	private final Set<CompletableFuture<V>> unfinished = ConcurrentHashMap.newKeySet();
+
+	private Batch pending = new Batch();
+
+	private boolean closed;
+
+	public BatchLoader(String name, int maxBatchSize, Duration window, int threads,
+			Function<Set<K>, Map<K, V>> batchFunction) {
+		this(name, maxBatchSize, window, threads, null, batchFunction);
+	}
+
+	public BatchLoader(String name, int maxBatchSize, Duration window, int threads, QueryCounter queryCounter,
+			Function<Set<K>, Map<K, V>> batchFunction) {
+		this.name = name;
+		this.batchFunction = batchFunction;
+		this.queryCounter = queryCounter;
+		this.maxBatchSize = maxBatchSize;
+		this.windowNanos = window.toNanos();
+		this.executor = Executors.newScheduledThreadPool(threads, threadFactory(name));
+	}
+
+	public V load(K key) {
+		Batch batch = enqueue(key);
+		try {
+			return join(batch.futures.get(key));
+		}
+		finally {
+			attribute(batch);
+		}
+	}
+
+	/**
+	 * The values found for the given keys, in the order of the keys. Keys
+	 * beyond maxBatchSize spill into the following batches.
+	 */
+	public Map<K, V> loadAll(Collection<K> keys) {
+		Map<K, Batch> batches = new LinkedHashMap<>();
+		for (K key : keys) {
+			batches.computeIfAbsent(key, this::enqueue);
+		}
+		Map<K, V> values = new LinkedHashMap<>();
+		try {
+			batches.forEach((key, batch) -> {
+				V value = join(batch.futures.get(key));
+				if (value != null) {
+					values.put(key, value);
+				}
+			});
+		}
+		finally {
+			Set<Batch> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+			distinct.addAll(batches.values());
+			distinct.forEach(this::attribute);
+		}
+		return values;
+	}
+
+	/**
+	 * Stops the loader threads. Callers still waiting, and later ones, fail
+	 * with an IllegalStateException.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		executor.shutdownNow();
+		IllegalStateException e = new IllegalStateException(name + " is closed");
+		unfinished.forEach(future -> future.completeExceptionally(e));
+	}
+
+	/**
+	 * Whether the key waits in the batch that is not dispatched yet.
+	 */
+	synchronized boolean isPending(K key) {
+		return pending.futures.containsKey(key);
+	}
+
+	private Batch enqueue(K key) {
+		Batch full = null;
+		Batch batch;
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException(name + " is closed");
+			}
+			batch = pending;
+			if (batch.futures.containsKey(key)) {
+				return batch;
+			}
+			CompletableFuture<V> future = new CompletableFuture<>();
+			unfinished.add(future);
+			future.whenComplete((value, e) -> unfinished.remove(future));
+			batch.futures.put(key, future);
+			if (batch.futures.size() >= maxBatchSize) {
+				full = batch;
+				pending = new Batch();
+			}
+			else if (batch.futures.size() == 1) {
+				executor.schedule(() -> dispatchIfPending(batch), windowNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+		if (full != null) {
+			Batch dispatched = full;
+			try {
+				executor.execute(() -> dispatch(dispatched));
+			}
+			catch (RejectedExecutionException e) {
+				// closed meanwhile, which fails the batch
+			}
+		}
+		return batch;
+	}
+
+	private void dispatchIfPending(Batch batch) {
+		synchronized (this) {
+			if (pending != batch) {
+				return;
+			}
+			pending = new Batch();
+		}
+		dispatch(batch);
+	}
+
+	private void dispatch(Batch batch) {
+		long start = queryCounter == null ? 0 : queryCounter.get();
+		Map<K, V> values = null;
+		Throwable failure = null;
+		try {
+			values = batchFunction.apply(batch.futures.keySet());
+		}
+		catch (Throwable e) {
+			failure = e;
+		}
+		if (queryCounter != null) {
+			batch.statementCount = queryCounter.get() - start;
+			batch.statements = queryCounter.statementsSince(start);
+		}
+		for (Map.Entry<K, CompletableFuture<V>> entry : batch.futures.entrySet()) {
+			if (failure == null) {
+				entry.getValue().complete(values.get(entry.getKey()));
+			}
+			else {
+				entry.getValue().completeExceptionally(failure);
+			}
+		}
+	}
+
+	private void attribute(Batch batch) {
+		if (queryCounter != null && batch.statementCount > 0) {
+			queryCounter.attribute(batch.statementCount, batch.statements);
+		}
+	}
+
+	private static <V> V join(CompletableFuture<V> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static ThreadFactory threadFactory(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * The keys dispatched together. The statement fields are written before
+	 * the futures complete, so a caller that joined its future sees them.
+	 */
+	private class Batch {
+
+		private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+
+		private long statementCount;
+
+		private List<String> statements = List.of();
+	}
+}
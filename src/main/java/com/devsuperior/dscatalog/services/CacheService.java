@@ -0,0 +1,89 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.devsuperior.dscatalog.config.CacheConfig;
+import com.devsuperior.dscatalog.config.EvictionTrackingCache;
+import com.devsuperior.dscatalog.dto.CacheStatsDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+@Service
+public class CacheService {
+
+	private final CacheManager cacheManager;
+
+	public CacheService(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	public List<CacheStatsDTO> findAllStats() {
+		return cacheManager.getCacheNames().stream().sorted().map(name -> {
+			Cache<Object, Object> cache = nativeCache(name);
+			CacheStats stats = cache.stats();
+			return new CacheStatsDTO(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+					stats.evictionCount(), stats.hitRate());
+		}).collect(Collectors.toList());
+	}
+
+	/**
+	 * Drops every cached product embedding the category. Runs immediately and
+	 * again after commit, so an entry loaded by a concurrent reader before the
+	 * commit does not survive.
+	 */
+	public void evictProductsByCategory(Long categoryId) {
+		evictProductsByCategories(Set.of(categoryId));
+	}
+
+	public void evictProductsByCategories(Set<Long> categoryIds) {
+		evictNowAndAfterCommit(() -> removeProductsByCategories(categoryIds));
+	}
+
+	public void evictProducts(Collection<Long> ids) {
+		evictNowAndAfterCommit(() -> {
+			cache(CacheConfig.PRODUCTS).evictAll(ids);
+			cache(CacheConfig.PRODUCT_JSON).evictAll(ids);
+		});
+	}
+
+	public void evictCategories(Collection<Long> ids) {
+		evictNowAndAfterCommit(() -> {
+			cache(CacheConfig.CATEGORIES).evictAll(ids);
+			cache(CacheConfig.CATEGORY_JSON).evictAll(ids);
+		});
+	}
+
+	private void evictNowAndAfterCommit(Runnable eviction) {
+		eviction.run();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					eviction.run();
+				}
+			});
+		}
+	}
+
+	private void removeProductsByCategories(Set<Long> categoryIds) {
+		cache(CacheConfig.PRODUCTS).evictIf(value -> ((ProductDTO) value).getCategories()
+				.stream().anyMatch(cat -> categoryIds.contains(cat.getId())));
+	}
+
+	private Cache<Object, Object> nativeCache(String name) {
+		return cache(name).getNativeCache();
+	}
+
+	private EvictionTrackingCache cache(String name) {
+		return (EvictionTrackingCache) cacheManager.getCache(name);
+	}
+}
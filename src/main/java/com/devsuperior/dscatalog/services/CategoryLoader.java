@@ -0,0 +1,65 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.metrics.QueryCounter;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+
+/**
+ * Looks categories up by id in batches, like ProductLoader does for
+ * products.
+ */
+@Component
+public class CategoryLoader {
+
+	private final CategoryRepository repository;
+
+	private final BatchLoader<Long, CategoryDTO> loader;
+
+	public CategoryLoader(CategoryRepository repository, PlatformTransactionManager transactionManager,
+			QueryCounter queryCounter,
+			@Value("${dscatalog.loader.max-batch-size:100}") int maxBatchSize,
+			@Value("${dscatalog.loader.window:2ms}") Duration window,
+			@Value("${dscatalog.loader.threads:2}") int threads) {
+		this.repository = repository;
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		this.loader = new BatchLoader<>("category-loader", maxBatchSize, window, threads, queryCounter,
+				ids -> readOnly.execute(status -> fetch(ids)));
+	}
+
+	/**
+	 * The category with the given id, or null when there is none.
+	 */
+	public CategoryDTO load(Long id) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return fetch(List.of(id)).get(id);
+		}
+		return loader.load(id);
+	}
+
+	@PreDestroy
+	public void close() {
+		loader.close();
+	}
+
+	private Map<Long, CategoryDTO> fetch(Collection<Long> ids) {
+		return repository.findAllById(ids).stream()
+				.map(CategoryDTO::new)
+				.collect(Collectors.toMap(CategoryDTO::getId, Function.identity()));
+	}
+}
@@ -1,70 +1,236 @@
 package com.devsuperior.dscatalog.services;
 
-import java.util.Optional;
-
-import javax.persistence.EntityNotFoundException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.devsuperior.dscatalog.config.CacheConfig;
 import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
 import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.metrics.QueryBudget;
 import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
+import com.devsuperior.dscatalog.services.exceptions.PreconditionFailedException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 
 @Service
 public class CategoryService {
 
+	private static final Set<String> CURSOR_SORT_KEYS = Set.of("id", "name");
+
 	private CategoryRepository repository;
 
-    public CategoryService(CategoryRepository repository) {
+	private CacheService cacheService;
+
+	private OptimisticRetry retry;
+
+	private CategoryStatsService stats;
+
+	private ProductListingService listing;
+
+	private CategoryLoader loader;
+
+    public CategoryService(CategoryRepository repository, CacheService cacheService, OptimisticRetry retry,
+            CategoryStatsService stats, ProductListingService listing, CategoryLoader loader) {
         this.repository = repository;
+        this.cacheService = cacheService;
+        this.retry = retry;
+        this.stats = stats;
+        this.listing = listing;
+        this.loader = loader;
     }
 
+    @Coalesced
     @Transactional(readOnly = true)
+    @QueryBudget(2)
 	public Page<CategoryDTO> findAllPaged(Pageable pageable) {
 		Page<Category> list = repository.findAll(pageable);
 		return list.map(CategoryDTO::new);
 	}
 
 	@Transactional(readOnly = true)
+	@QueryBudget(1)
+	public CursorPageDTO<CategoryDTO> findAllByCursor(String after, Pageable pageable) {
+		String key;
+		Slice<Category> slice;
+		if (after == null || after.isEmpty()) {
+			key = KeysetCursor.sortKey(pageable.getSort(), CURSOR_SORT_KEYS);
+			Pageable page = KeysetCursor.pageOf(key, pageable.getPageSize());
+			slice = "name".equals(key) ? repository.findSliceByName(page) : repository.findSlice(page);
+		}
+		else {
+			KeysetCursor cursor = KeysetCursor.decode(after, CURSOR_SORT_KEYS);
+			key = cursor.getKey();
+			Pageable page = KeysetCursor.pageOf(key, pageable.getPageSize());
+			if (!"name".equals(key)) {
+				slice = repository.findSliceAfterId(cursor.getId(), page);
+			}
+			else if (cursor.getValue() == null) {
+				slice = repository.findSliceAfterNullName(cursor.getId(), page);
+			}
+			else {
+				slice = repository.findSliceAfterName(cursor.getValue(), cursor.getId(), page);
+			}
+		}
+		String next = null;
+		if (slice.hasNext()) {
+			Category last = slice.getContent().get(slice.getNumberOfElements() - 1);
+			next = new KeysetCursor(key, last.getId(), "name".equals(key) ? last.getName() : null).encode();
+		}
+		return new CursorPageDTO<>(slice.map(CategoryDTO::new).getContent(), pageable.getPageSize(), next);
+	}
+
+	@Cacheable(value = CacheConfig.CATEGORIES, key = "#id", sync = true)
+	@Coalesced
+	@QueryBudget(1)
 	public CategoryDTO findById(Long id) {
-		Optional<Category> obj = repository.findById(id);
-		Category entity = obj.orElseThrow(() -> new ResourceNotFoundException("Entity not found"));
-		return new CategoryDTO(entity);
+		CategoryDTO dto = loader.load(id);
+		if (dto == null) {
+			throw new ResourceNotFoundException("Entity not found");
+		}
+		return dto;
+	}
+
+	/**
+	 * The category followed by all its descendants in pre-order: each one
+	 * right after its parent, followed by its own descendants before the
+	 * next sibling.
+	 */
+	@Transactional(readOnly = true)
+	@QueryBudget(2)
+	public List<CategoryDTO> findSubtree(Long id) {
+		Category root = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Entity not found"));
+		return repository.findSubtree(id, root.getSubtreePrefix()).stream()
+				.map(CategoryDTO::new).collect(Collectors.toList());
+	}
+
+	/**
+	 * The path from the root down to the category, both included.
+	 */
+	@Transactional(readOnly = true)
+	@QueryBudget(2)
+	public List<CategoryDTO> findBreadcrumbs(Long id) {
+		Category entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Entity not found"));
+		List<Long> ancestorIds = pathIds(entity.getPath());
+		Map<Long, Category> ancestors = repository.findAllById(ancestorIds).stream()
+				.collect(Collectors.toMap(Category::getId, Function.identity()));
+		List<CategoryDTO> result = new ArrayList<>(ancestorIds.size() + 1);
+		ancestorIds.forEach(ancestorId -> result.add(new CategoryDTO(ancestors.get(ancestorId))));
+		result.add(new CategoryDTO(entity));
+		return result;
 	}
 
 	@Transactional
 	public CategoryDTO insert(CategoryDTO dto) {
 		Category entity = new Category();
 		entity.setName(dto.getName());
+		Category parent = dto.getParentId() == null ? null : repository.findById(dto.getParentId())
+				.orElseThrow(() -> new ResourceNotFoundException("Parent not found " + dto.getParentId()));
+		entity.setParent(parent);
+		entity.setPath(parent == null ? "/" : parent.getSubtreePrefix());
 		entity = repository.save(entity);
+		stats.categoryCreated(entity.getId());
 		return new CategoryDTO(entity);
 	}
 
+	/**
+	 * Moves a category, with its subtree, under another parent or to the
+	 * root. The moved row and the new parent are locked in id order, so two
+	 * concurrent moves cannot build a cycle; the descendants' paths are then
+	 * rewritten by one UPDATE.
+	 */
 	@Transactional
+	public CategoryDTO move(Long id, Long parentId) {
+		List<Long> lockIds = parentId == null ? List.of(id) : List.of(id, parentId);
+		Map<Long, Category> locked = repository.findAllForUpdate(lockIds).stream()
+				.collect(Collectors.toMap(Category::getId, Function.identity()));
+		Category entity = locked.get(id);
+		if (entity == null) {
+			throw new ResourceNotFoundException("Id not found " + id);
+		}
+		Category parent = null;
+		if (parentId != null) {
+			parent = locked.get(parentId);
+			if (parent == null) {
+				throw new ResourceNotFoundException("Parent not found " + parentId);
+			}
+		}
+		String oldPrefix = entity.getSubtreePrefix();
+		String newPath = parent == null ? "/" : parent.getSubtreePrefix();
+		if (newPath.startsWith(oldPrefix)) {
+			throw new BadRequestException("A category cannot be moved below itself");
+		}
+		if (newPath.equals(entity.getPath())) {
+			return new CategoryDTO(entity);
+		}
+		List<Long> subtreeIds = repository.findSubtreeIds(id, oldPrefix);
+		entity.setParent(parent);
+		entity.setPath(newPath);
+		repository.movePaths(oldPrefix, newPath + id + "/", oldPrefix.length() + 1, Instant.now());
+		List<Category> subtree = repository.findSubtree(id, newPath + id + "/");
+		listing.categoriesMoved(id, subtree);
+		cacheService.evictCategories(subtreeIds);
+		cacheService.evictProductsByCategories(new HashSet<>(subtreeIds));
+		return new CategoryDTO(subtree.get(0));
+	}
+
+	private static List<Long> pathIds(String path) {
+		List<Long> ids = new ArrayList<>();
+		if (path != null) {
+			for (String part : path.split("/")) {
+				if (!part.isEmpty()) {
+					ids.add(Long.valueOf(part));
+				}
+			}
+		}
+		return ids;
+	}
+
+	@CacheEvict(value = { CacheConfig.CATEGORIES, CacheConfig.CATEGORY_JSON }, key = "#id")
 	public CategoryDTO update(Long id, CategoryDTO dto) {
-		try {
-			Category entity = repository.getOne(id);
+		return update(id, dto, null);
+	}
+
+	@CacheEvict(value = { CacheConfig.CATEGORIES, CacheConfig.CATEGORY_JSON }, key = "#id")
+	public CategoryDTO update(Long id, CategoryDTO dto, Long expectedVersion) {
+		return retry.execute(() -> {
+			Category entity = repository.findById(id)
+					.orElseThrow(() -> new ResourceNotFoundException("Id not found " + id));
+			if (expectedVersion != null && !expectedVersion.equals(entity.getVersion())) {
+				throw new PreconditionFailedException("Category " + id + " was modified by another request");
+			}
 			entity.setName(dto.getName());
-			entity = repository.save(entity);
+			entity = repository.saveAndFlush(entity);
+			listing.categoryRenamed(entity);
+			cacheService.evictProductsByCategory(id);
 			return new CategoryDTO(entity);
-		}
-		catch (EntityNotFoundException e) {
-			throw new ResourceNotFoundException("Id not found " + id);
-		}		
+		});
 	}
 
+	@CacheEvict(value = { CacheConfig.CATEGORIES, CacheConfig.CATEGORY_JSON }, key = "#id")
 	public void delete(Long id) {
 		try {
 			repository.deleteById(id);
+			stats.categoryDeleted(id);
 		}
 		catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id not found " + id);
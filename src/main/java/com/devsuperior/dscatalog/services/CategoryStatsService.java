@@ -0,0 +1,139 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.devsuperior.dscatalog.dto.CategoryStatsDTO;
+import com.devsuperior.dscatalog.entities.CategoryStats;
+import com.devsuperior.dscatalog.metrics.QueryBudget;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.devsuperior.dscatalog.repositories.CategoryStatsRepository;
+
+/**
+ * Keeps product counts and price ranges per category up to date as products
+ * are written, so facet reads are a single lookup in tb_category_stats.
+ * Counts and widening ranges are adjusted in place; only a category that
+ * loses the product holding its minimum or maximum price is recomputed, as
+ * are all categories touched by bulk writes. Every change runs in the
+ * caller's transaction.
+ */
+@Service
+public class CategoryStatsService {
+
+	private static final Logger logger = LoggerFactory.getLogger(CategoryStatsService.class);
+
+	private final CategoryStatsRepository repository;
+
+	private final CategoryRepository categoryRepository;
+
+	public CategoryStatsService(CategoryStatsRepository repository, CategoryRepository categoryRepository) {
+		this.repository = repository;
+		this.categoryRepository = categoryRepository;
+	}
+
+	@Transactional(readOnly = true)
+	@QueryBudget(1)
+	public List<CategoryStatsDTO> findAll(Long parentId) {
+		return parentId == null ? repository.findAllStats() : repository.findStatsByParent(parentId);
+	}
+
+	/**
+	 * Applies one product write. The old price and categories are null for
+	 * an insert, the new ones for a delete.
+	 */
+	@Transactional
+	public void productChanged(Double oldPrice, Set<Long> oldCategoryIds, Double newPrice, Set<Long> newCategoryIds) {
+		Set<Long> removed = new HashSet<>(oldCategoryIds == null ? Set.of() : oldCategoryIds);
+		Set<Long> added = new HashSet<>(newCategoryIds == null ? Set.of() : newCategoryIds);
+		Set<Long> kept = new HashSet<>(removed);
+		kept.retainAll(added);
+		removed.removeAll(kept);
+		added.removeAll(kept);
+
+		Set<Long> stale = new HashSet<>();
+		if (!removed.isEmpty()) {
+			repository.addToCount(removed, -1);
+			if (oldPrice != null) {
+				stale.addAll(repository.findBoundedBy(removed, oldPrice));
+			}
+		}
+		if (!added.isEmpty()) {
+			repository.addToCount(added, 1);
+			if (newPrice != null) {
+				repository.widenRange(added, newPrice);
+			}
+		}
+		if (!kept.isEmpty() && !Objects.equals(oldPrice, newPrice)) {
+			if (oldPrice != null) {
+				stale.addAll(repository.findBoundedBy(kept, oldPrice));
+			}
+			if (newPrice != null) {
+				repository.widenRange(kept, newPrice);
+			}
+		}
+		if (!stale.isEmpty()) {
+			repository.recompute(stale);
+		}
+	}
+
+	/**
+	 * Recomputes the given categories from tb_product_category, for writes
+	 * that change many products at once.
+	 */
+	@Transactional
+	public void recompute(Collection<Long> categoryIds) {
+		if (!categoryIds.isEmpty()) {
+			repository.recompute(categoryIds);
+		}
+	}
+
+	/**
+	 * Rebuilds every row from scratch.
+	 */
+	@Transactional
+	public void recomputeAll() {
+		long start = System.nanoTime();
+		repository.deleteAllRows();
+		int rows = repository.insertAllFromScratch();
+		logger.info("Recomputed stats of {} categories in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	@Transactional
+	public void categoryCreated(Long categoryId) {
+		repository.save(new CategoryStats(categoryId));
+	}
+
+	@Transactional
+	public void categoryDeleted(Long categoryId) {
+		if (repository.existsById(categoryId)) {
+			repository.deleteById(categoryId);
+		}
+	}
+
+	/**
+	 * Categories inserted outside the application, such as by the seed
+	 * script, have no stats yet; the table is rebuilt when they are missing.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional
+	public void recomputeIfIncomplete() {
+		if (repository.count() != categoryRepository.count()) {
+			recomputeAll();
+		}
+	}
+
+	@Transactional(readOnly = true)
+	public Set<Long> findCategoryIdsOfProducts(Collection<Long> productIds) {
+		return productIds.isEmpty() ? Set.of() : new HashSet<>(repository.findCategoryIdsOfProducts(productIds));
+	}
+}
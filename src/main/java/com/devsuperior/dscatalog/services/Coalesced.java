@@ -0,0 +1,18 @@
+package com.devsuperior.dscatalog.services;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Concurrent calls of a read-only service method with equal arguments share
+ * one invocation and its result, see CoalescingAspect. The arguments must
+ * implement equals and hashCode.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+}
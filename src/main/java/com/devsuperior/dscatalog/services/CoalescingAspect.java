@@ -0,0 +1,56 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.devsuperior.dscatalog.config.CacheEvictions;
+
+/**
+ * Runs inside the caching advice, so only misses get here, and outside the
+ * transactional one, so the callers that join a running load never open a
+ * transaction or borrow a connection. A caller that already runs in a
+ * transaction proceeds on its own: it may read its own uncommitted writes.
+ * A load may still read rows as they were before a concurrent write
+ * committed. Its callers get that result, but once the write has evicted
+ * anything, later callers start a load of their own instead of joining it,
+ * and EvictionTrackingCache does not store the overlapping result.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class CoalescingAspect {
+
+	private final SingleFlight<List<Object>, Object> flights = new SingleFlight<>();
+
+	private final CacheEvictions evictions;
+
+	public CoalescingAspect(CacheEvictions evictions) {
+		this.evictions = evictions;
+	}
+
+	@Around("@annotation(com.devsuperior.dscatalog.services.Coalesced)")
+	public Object coalesce(ProceedingJoinPoint pjp) throws Throwable {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return pjp.proceed();
+		}
+		return flights.execute(keyOf(pjp), evictions.count(), pjp::proceed);
+	}
+
+	public int waiting() {
+		return flights.waiting();
+	}
+
+	private static List<Object> keyOf(ProceedingJoinPoint pjp) {
+		List<Object> key = new ArrayList<>(pjp.getArgs().length + 1);
+		key.add(pjp.getSignature().toLongString());
+		key.addAll(Arrays.asList(pjp.getArgs()));
+		return key;
+	}
+}
@@ -0,0 +1,7 @@
+package com.devsuperior.dscatalog.services;
+
+public enum CountMode {
+	EXACT,
+	ESTIMATED,
+	NONE;
+}
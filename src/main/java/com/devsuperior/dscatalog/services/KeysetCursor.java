@@ -0,0 +1,94 @@
+package com.devsuperior.dscatalog.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Opaque position of the last row of a keyset page: the sort key, its value
+ * and the id used as tie-breaker. Rows without a sort value come last,
+ * ordered by id; their cursor carries no value at all, so null never turns
+ * into the text "null". Encoded as url-safe Base64 so clients treat it as a
+ * token.
+ */
+class KeysetCursor {
+
+	private static final String SEPARATOR = "|";
+
+	private final String key;
+	private final Long id;
+	private final String value;
+
+	KeysetCursor(String key, Long id, String value) {
+		this.key = key;
+		this.id = id;
+		this.value = value;
+	}
+
+	String getKey() {
+		return key;
+	}
+
+	Long getId() {
+		return id;
+	}
+
+	String getValue() {
+		return value;
+	}
+
+	Double getValueAsDouble() {
+		try {
+			return Double.valueOf(value);
+		}
+		catch (NumberFormatException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
+	}
+
+	String encode() {
+		String raw = value == null ? key + SEPARATOR + id : key + SEPARATOR + id + SEPARATOR + value;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static KeysetCursor decode(String token, Set<String> keys) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\" + SEPARATOR, 3);
+			if (parts.length < 2 || !keys.contains(parts[0])) {
+				throw new BadRequestException("Invalid cursor");
+			}
+			return new KeysetCursor(parts[0], Long.valueOf(parts[1]), parts.length == 3 ? parts[2] : null);
+		}
+		catch (IllegalArgumentException e) {
+			throw new BadRequestException("Invalid cursor");
+		}
+	}
+
+	static String sortKey(Sort sort, Set<String> keys) {
+		Iterator<Sort.Order> orders = sort.iterator();
+		if (!orders.hasNext()) {
+			return "id";
+		}
+		Sort.Order order = orders.next();
+		if (orders.hasNext() || order.isDescending() || !keys.contains(order.getProperty())) {
+			throw new BadRequestException("Cursor pagination supports a single ascending sort on " + keys);
+		}
+		return order.getProperty();
+	}
+
+	/**
+	 * The queries for the other keys order by themselves, nulls last, which
+	 * a Sort cannot express.
+	 */
+	static Pageable pageOf(String key, int size) {
+		return "id".equals(key) ? PageRequest.of(0, size, Sort.by("id")) : PageRequest.of(0, size);
+	}
+}
@@ -0,0 +1,68 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs a write in its own transaction and runs it again, after a short
+ * randomized backoff, when it lost an optimistic locking race. Each attempt
+ * re-reads what it changes, so a retry applies the write on top of the
+ * winner instead of overwriting it. Inside a transaction the caller already
+ * owns, the write runs once and a conflict propagates.
+ */
+@Component
+public class OptimisticRetry {
+
+	private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int maxAttempts;
+
+	private final long backoffMillis;
+
+	public OptimisticRetry(PlatformTransactionManager transactionManager,
+			@Value("${dscatalog.retry.max-attempts:3}") int maxAttempts,
+			@Value("${dscatalog.retry.backoff-ms:20}") long backoffMillis) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.maxAttempts = maxAttempts;
+		this.backoffMillis = backoffMillis;
+	}
+
+	public <T> T execute(Supplier<T> write) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return write.get();
+		}
+		for (int attempt = 1;; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> write.get());
+			}
+			catch (OptimisticLockingFailureException e) {
+				if (attempt >= maxAttempts) {
+					throw e;
+				}
+				log.debug("Optimistic locking conflict, attempt {} of {}", attempt, maxAttempts);
+				backoff(attempt);
+			}
+		}
+	}
+
+	private void backoff(int attempt) {
+		try {
+			Thread.sleep(backoffMillis * attempt + ThreadLocalRandom.current().nextLong(backoffMillis + 1));
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while retrying", e);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO;
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO.Status;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
+
+/**
+ * Inserts and updates many products in one transaction. Items are flushed in
+ * chunks of the JDBC batch size and the persistence context is cleared after
+ * each chunk, so Hibernate sends batched statements and memory stays flat.
+ * The listing rows of each chunk are written once its products are flushed.
+ * A batch that loses an optimistic locking race is replayed as a whole.
+ * Category stats are recomputed once, for every category the batch touched.
+ */
+@Service
+public class ProductBatchService {
+
+	private final ProductRepository repository;
+
+	private final CategoryRepository categoryRepository;
+
+	private final CacheService cacheService;
+
+	private final EntityManager entityManager;
+
+	private final ApplicationEventPublisher publisher;
+
+	private final OptimisticRetry retry;
+
+	private final CategoryStatsService stats;
+
+	private final ProductListingService listing;
+
+	private final int chunkSize;
+
+	private final int maxSize;
+
+	public ProductBatchService(ProductRepository repository, CategoryRepository categoryRepository,
+			CacheService cacheService, EntityManager entityManager, ApplicationEventPublisher publisher,
+			OptimisticRetry retry, CategoryStatsService stats, ProductListingService listing,
+			@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int chunkSize,
+			@Value("${dscatalog.products.batch.max-size:5000}") int maxSize) {
+		this.repository = repository;
+		this.categoryRepository = categoryRepository;
+		this.cacheService = cacheService;
+		this.entityManager = entityManager;
+		this.publisher = publisher;
+		this.retry = retry;
+		this.stats = stats;
+		this.listing = listing;
+		this.chunkSize = chunkSize;
+		this.maxSize = maxSize;
+	}
+
+	public List<BatchItemResultDTO> saveAll(List<ProductDTO> dtos) {
+		checkSize(dtos);
+		return retry.execute(() -> {
+			Set<Long> categoryIds = dtos.stream()
+					.flatMap(dto -> dto.getCategories().stream())
+					.map(CategoryDTO::getId)
+					.filter(Objects::nonNull)
+					.collect(Collectors.toSet());
+			Set<Long> knownCategoryIds = categoryIds.isEmpty()
+					? Set.of()
+					: new HashSet<>(categoryRepository.findExistingIds(categoryIds));
+			return save(dtos, knownCategoryIds);
+		});
+	}
+
+	public List<BatchItemResultDTO> saveAll(List<ProductDTO> dtos, Set<Long> knownCategoryIds) {
+		checkSize(dtos);
+		return retry.execute(() -> save(dtos, knownCategoryIds));
+	}
+
+	private List<BatchItemResultDTO> save(List<ProductDTO> dtos, Set<Long> knownCategoryIds) {
+		List<BatchItemResultDTO> results = new ArrayList<>(dtos.size());
+		List<Long> updatedIds = new ArrayList<>();
+		Set<Long> touchedCategoryIds = new HashSet<>();
+		for (int start = 0; start < dtos.size(); start += chunkSize) {
+			List<ProductDTO> chunk = dtos.subList(start, Math.min(start + chunkSize, dtos.size()));
+			Map<Long, Product> existing = findExisting(chunk);
+			List<Product> saved = new ArrayList<>(chunk.size());
+			for (int i = 0; i < chunk.size(); i++) {
+				int index = start + i;
+				ProductDTO dto = chunk.get(i);
+				String error = validate(dto, existing, knownCategoryIds);
+				if (error != null) {
+					results.add(new BatchItemResultDTO(index, dto.getId(), Status.FAILED, error));
+				}
+				else if (dto.getId() == null) {
+					Product entity = new Product();
+					copyDtoToEntity(dto, entity);
+					entityManager.persist(entity);
+					addCategoryIds(entity, touchedCategoryIds);
+					saved.add(entity);
+					publisher.publishEvent(ProductChangedEvent.saved(entity, dto.getCategories()));
+					results.add(new BatchItemResultDTO(index, entity.getId(), Status.CREATED, null));
+				}
+				else {
+					Product entity = existing.get(dto.getId());
+					addCategoryIds(entity, touchedCategoryIds);
+					copyDtoToEntity(dto, entity);
+					addCategoryIds(entity, touchedCategoryIds);
+					saved.add(entity);
+					publisher.publishEvent(ProductChangedEvent.saved(entity, dto.getCategories()));
+					updatedIds.add(dto.getId());
+					results.add(new BatchItemResultDTO(index, dto.getId(), Status.UPDATED, null));
+				}
+			}
+			flush();
+			listing.productsSaved(saved);
+			flush();
+			entityManager.clear();
+		}
+		stats.recompute(touchedCategoryIds);
+		cacheService.evictProducts(updatedIds);
+		return results;
+	}
+
+	private static void addCategoryIds(Product entity, Set<Long> categoryIds) {
+		entity.getCategories().forEach(category -> categoryIds.add(category.getId()));
+	}
+
+	private void checkSize(List<ProductDTO> dtos) {
+		if (dtos.size() > maxSize) {
+			throw new BadRequestException("A batch accepts at most " + maxSize + " products");
+		}
+	}
+
+	private Map<Long, Product> findExisting(List<ProductDTO> chunk) {
+		List<Long> ids = chunk.stream()
+				.map(ProductDTO::getId)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		if (ids.isEmpty()) {
+			return Map.of();
+		}
+		return repository.findWithCategoriesByIdIn(ids).stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+	}
+
+	private static String validate(ProductDTO dto, Map<Long, Product> existing, Set<Long> knownCategoryIds) {
+		if (dto.getId() != null && !existing.containsKey(dto.getId())) {
+			return "Id not found " + dto.getId();
+		}
+		for (CategoryDTO catDto : dto.getCategories()) {
+			if (catDto.getId() == null || !knownCategoryIds.contains(catDto.getId())) {
+				return "Category not found " + catDto.getId();
+			}
+		}
+		return null;
+	}
+
+	private void copyDtoToEntity(ProductDTO dto, Product entity) {
+		ProductService.copyFieldsToEntity(dto, entity);
+		ProductService.replaceCategories(entity, dto.getCategories(),
+				categoryId -> entityManager.getReference(Category.class, categoryId));
+	}
+
+	private void flush() {
+		try {
+			entityManager.flush();
+		}
+		catch (OptimisticLockException e) {
+			throw new ObjectOptimisticLockingFailureException("Product was modified concurrently", e);
+		}
+		catch (PersistenceException e) {
+			throw new DatabaseException("Integrity violation");
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+
+/**
+ * Total number of products, recounted at most once per configured max age.
+ * Only one caller pays for the count when the value goes stale.
+ */
+@Component
+public class ProductCountCache {
+
+	private final ProductRepository repository;
+	private final long maxAgeNanos;
+
+	private volatile long count;
+	private volatile long loadedAt;
+	private volatile boolean loaded;
+
+	public ProductCountCache(ProductRepository repository,
+			@Value("${dscatalog.products.count-max-age:30s}") Duration maxAge) {
+		this.repository = repository;
+		this.maxAgeNanos = maxAge.toNanos();
+	}
+
+	public long get() {
+		if (isStale()) {
+			synchronized (this) {
+				if (isStale()) {
+					count = repository.count();
+					loadedAt = System.nanoTime();
+					loaded = true;
+				}
+			}
+		}
+		return count;
+	}
+
+	private boolean isStale() {
+		return !loaded || System.nanoTime() - loadedAt >= maxAgeNanos;
+	}
+}
@@ -0,0 +1,61 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+
+/**
+ * Walks the whole catalog over a forward-only cursor. Categories are fetched
+ * once per chunk and the persistence context is cleared after each chunk, so
+ * memory does not grow with the number of products.
+ */
+@Service
+public class ProductExportService {
+
+	private static final int CHUNK_SIZE = 500;
+
+	private final ProductRepository repository;
+
+	private final EntityManager entityManager;
+
+	public ProductExportService(ProductRepository repository, EntityManager entityManager) {
+		this.repository = repository;
+		this.entityManager = entityManager;
+	}
+
+	@Transactional(readOnly = true)
+	public void exportAll(Consumer<ProductDTO> consumer) {
+		try (Stream<Product> stream = repository.streamAll()) {
+			List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+			Iterator<Product> it = stream.iterator();
+			while (it.hasNext()) {
+				chunk.add(it.next());
+				if (chunk.size() == CHUNK_SIZE) {
+					emit(chunk, consumer);
+				}
+			}
+			emit(chunk, consumer);
+		}
+	}
+
+	private void emit(List<Product> chunk, Consumer<ProductDTO> consumer) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		repository.findProductsWithCategories(chunk);
+		chunk.forEach(x -> consumer.accept(new ProductDTO(x, x.getCategories())));
+		chunk.clear();
+		entityManager.clear();
+	}
+}
@@ -0,0 +1,331 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.FacetResultDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.events.PricesAdjustedEvent;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+
+/**
+ * In-memory facet index over products. Every product takes a dense slot and
+ * each category and price bucket keeps a bitset of slots, so a filter is a
+ * few word-wise ANDs and price bucket counts are one AND and cardinality per
+ * bucket. Like {@link ProductSearchService}, it is built from the database
+ * once the application is ready and then follows every committed
+ * {@link ProductChangedEvent} and {@link PricesAdjustedEvent}.
+ */
+@Service
+public class ProductFacetService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProductFacetService.class);
+
+	private static final Map<String, Comparator<Document>> ORDERS = Map.of(
+			"id", Comparator.comparing((Document doc) -> doc.id),
+			"name", Comparator.comparing((Document doc) -> doc.name, Comparator.nullsLast(Comparator.naturalOrder()))
+					.thenComparing(doc -> doc.id),
+			"price", Comparator.comparing((Document doc) -> doc.price, Comparator.nullsLast(Comparator.naturalOrder()))
+					.thenComparing(doc -> doc.id));
+
+	private final ProductExportService exportService;
+
+	/** Lower bound of each price bucket; the first and last are open-ended. */
+	private final double[] bucketBounds;
+
+	private final List<Document> slots = new ArrayList<>();
+	private final Map<Long, Integer> slotById = new HashMap<>();
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+	private final BitSet live = new BitSet();
+	private final Map<Long, Integer> categoryOrdinals = new HashMap<>();
+	private final List<Long> categoryIds = new ArrayList<>();
+	private final List<BitSet> byCategory = new ArrayList<>();
+	private final BitSet[] byPrice;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public ProductFacetService(ProductExportService exportService,
+			@Value("${dscatalog.products.facets.price-buckets:0,50,100,200,500,1000,2000,5000}") double[] bucketBounds) {
+		this.exportService = exportService;
+		this.bucketBounds = bucketBounds.clone();
+		Arrays.sort(this.bucketBounds);
+		this.byPrice = new BitSet[this.bucketBounds.length];
+		for (int i = 0; i < byPrice.length; i++) {
+			byPrice[i] = new BitSet();
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			slots.clear();
+			slotById.clear();
+			freeSlots.clear();
+			live.clear();
+			categoryOrdinals.clear();
+			categoryIds.clear();
+			byCategory.clear();
+			for (BitSet bucket : byPrice) {
+				bucket.clear();
+			}
+			exportService.exportAll(this::add);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		logger.info("Product facet index built with {} products in {} ms", slotById.size(),
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		lock.writeLock().lock();
+		try {
+			remove(event.getId());
+			if (!event.isDeleted()) {
+				add(event.getProduct());
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onPricesAdjusted(PricesAdjustedEvent event) {
+		lock.writeLock().lock();
+		try {
+			for (Long id : event.getIds()) {
+				Integer slot = slotById.get(id);
+				if (slot != null) {
+					Document doc = slots.get(slot);
+					setPriceBucket(slot, doc.price, false);
+					doc.price = event.apply(doc.price);
+					setPriceBucket(slot, doc.price, true);
+				}
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Products in every one of {@code categoryIds} priced within
+	 * [minPrice, maxPrice], sorted by id, name or price. Category counts
+	 * describe the matches; price bucket counts ignore the price range so the
+	 * client can show how widening it would change the result.
+	 */
+	public FacetResultDTO search(Set<Long> filterCategoryIds, Double minPrice, Double maxPrice, Pageable pageable) {
+		Comparator<Document> order = order(pageable.getSort());
+		int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+		lock.readLock().lock();
+		try {
+			BitSet base = (BitSet) live.clone();
+			if (filterCategoryIds != null) {
+				for (Long categoryId : filterCategoryIds) {
+					Integer ordinal = categoryOrdinals.get(categoryId);
+					if (ordinal == null) {
+						base.clear();
+						break;
+					}
+					base.and(byCategory.get(ordinal));
+				}
+			}
+			BitSet matches = minPrice == null && maxPrice == null ? base : priceMask(base, minPrice, maxPrice);
+
+			// keeps only the first offset + size matches, last on top, instead of sorting every match
+			PriorityQueue<Document> top = new PriorityQueue<>(order.reversed());
+			int[] counts = new int[categoryIds.size()];
+			for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+				Document doc = slots.get(slot);
+				for (int ordinal : doc.categoryOrdinals) {
+					counts[ordinal]++;
+				}
+				if (top.size() < limit) {
+					top.add(doc);
+				}
+				else if (limit > 0 && order.compare(doc, top.peek()) < 0) {
+					top.poll();
+					top.add(doc);
+				}
+			}
+			Map<Long, Integer> categoryCounts = new TreeMap<>();
+			for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+				if (counts[ordinal] > 0) {
+					categoryCounts.put(categoryIds.get(ordinal), counts[ordinal]);
+				}
+			}
+
+			List<FacetResultDTO.PriceBucket> prices = new ArrayList<>(byPrice.length);
+			for (int i = 0; i < byPrice.length; i++) {
+				BitSet bucket = (BitSet) byPrice[i].clone();
+				bucket.and(base);
+				prices.add(new FacetResultDTO.PriceBucket(i == 0 ? null : bucketBounds[i],
+						i + 1 < bucketBounds.length ? bucketBounds[i + 1] : null, bucket.cardinality()));
+			}
+
+			List<Document> sorted = new ArrayList<>(top);
+			sorted.sort(order);
+			int from = (int) Math.min(pageable.getOffset(), sorted.size());
+			List<ProductDTO> content = new ArrayList<>(sorted.size() - from);
+			for (Document doc : sorted.subList(from, sorted.size())) {
+				content.add(doc.toDTO());
+			}
+			return new FacetResultDTO(content, pageable.getPageNumber(), pageable.getPageSize(),
+					(long) matches.cardinality(), categoryCounts, prices);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Buckets entirely inside the range are taken whole; only the products
+	 * of the one or two buckets it cuts through are compared by price.
+	 */
+	private BitSet priceMask(BitSet base, Double minPrice, Double maxPrice) {
+		BitSet mask = new BitSet();
+		for (int i = 0; i < byPrice.length; i++) {
+			double low = i == 0 ? Double.NEGATIVE_INFINITY : bucketBounds[i];
+			double high = i + 1 < bucketBounds.length ? bucketBounds[i + 1] : Double.POSITIVE_INFINITY;
+			if ((maxPrice != null && low > maxPrice) || (minPrice != null && high <= minPrice)) {
+				continue;
+			}
+			if ((minPrice == null || low >= minPrice) && (maxPrice == null || high <= maxPrice)) {
+				mask.or(byPrice[i]);
+				continue;
+			}
+			BitSet cut = (BitSet) byPrice[i].clone();
+			cut.and(base);
+			for (int slot = cut.nextSetBit(0); slot >= 0; slot = cut.nextSetBit(slot + 1)) {
+				double price = slots.get(slot).price;
+				if ((minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice)) {
+					mask.set(slot);
+				}
+			}
+		}
+		mask.and(base);
+		return mask;
+	}
+
+	private static Comparator<Document> order(Sort sort) {
+		for (Sort.Order sortOrder : sort) {
+			Comparator<Document> order = ORDERS.get(sortOrder.getProperty());
+			if (order != null) {
+				return sortOrder.isDescending() ? order.reversed() : order;
+			}
+		}
+		return ORDERS.get("id");
+	}
+
+	private void add(ProductDTO dto) {
+		int[] ordinals = dto.getCategories().stream().map(CategoryDTO::getId).distinct()
+				.mapToInt(this::categoryOrdinal).toArray();
+		Document doc = new Document(dto, ordinals);
+		Integer slot = freeSlots.poll();
+		if (slot == null) {
+			slot = slots.size();
+			slots.add(doc);
+		}
+		else {
+			slots.set(slot, doc);
+		}
+		slotById.put(doc.id, slot);
+		live.set(slot);
+		for (int ordinal : doc.categoryOrdinals) {
+			byCategory.get(ordinal).set(slot);
+		}
+		setPriceBucket(slot, doc.price, true);
+	}
+
+	private void remove(Long id) {
+		Integer slot = slotById.remove(id);
+		if (slot == null) {
+			return;
+		}
+		Document doc = slots.get(slot);
+		live.clear(slot);
+		for (int ordinal : doc.categoryOrdinals) {
+			byCategory.get(ordinal).clear(slot);
+		}
+		setPriceBucket(slot, doc.price, false);
+		slots.set(slot, null);
+		freeSlots.push(slot);
+	}
+
+	/**
+	 * Categories are numbered densely in order of appearance, so counting
+	 * them per match is an array increment.
+	 */
+	private int categoryOrdinal(Long categoryId) {
+		return categoryOrdinals.computeIfAbsent(categoryId, id -> {
+			categoryIds.add(id);
+			byCategory.add(new BitSet());
+			return categoryIds.size() - 1;
+		});
+	}
+
+	private void setPriceBucket(int slot, Double price, boolean value) {
+		if (price != null) {
+			byPrice[bucketOf(price)].set(slot, value);
+		}
+	}
+
+	private int bucketOf(double price) {
+		int index = Arrays.binarySearch(bucketBounds, price);
+		int bucket = index >= 0 ? index : -index - 2;
+		return Math.max(bucket, 0);
+	}
+
+	/**
+	 * The listing fields of a product, as returned by search results.
+	 */
+	private static class Document {
+
+		private final Long id;
+		private final String name;
+		private Double price;
+		private final String imgUrl;
+		private final Instant date;
+		private final int[] categoryOrdinals;
+
+		Document(ProductDTO dto, int[] categoryOrdinals) {
+			this.id = dto.getId();
+			this.name = dto.getName();
+			this.price = dto.getPrice();
+			this.imgUrl = dto.getImgUrl();
+			this.date = dto.getDate();
+			this.categoryOrdinals = categoryOrdinals;
+		}
+
+		ProductDTO toDTO() {
+			return new ProductDTO(id, name, null, price, imgUrl, date);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * The fields of a product a client asked for, as in
+ * fields=name,price,categories. Reads select only the listing columns of
+ * those fields and leave the other ProductDTO fields empty. The id is always
+ * included, and so are the version and last-modified time behind the ETag.
+ */
+public final class ProductFields {
+
+	public static final String CATEGORIES = "categories";
+
+	private static final List<String> NAMES = List.of("id", "name", "description", "price", "imgUrl", "date",
+			CATEGORIES);
+
+	public static final ProductFields ALL = new ProductFields(new LinkedHashSet<>(NAMES));
+
+	public static final ProductFields WITHOUT_CATEGORIES = new ProductFields(
+			new LinkedHashSet<>(NAMES.subList(0, NAMES.size() - 1)));
+
+	private final Set<String> names;
+
+	private ProductFields(Set<String> names) {
+		this.names = Collections.unmodifiableSet(names);
+	}
+
+	public static ProductFields of(boolean withCategories) {
+		return withCategories ? ALL : WITHOUT_CATEGORIES;
+	}
+
+	/**
+	 * Parses a comma-separated list of field names. Without one, every field
+	 * but the categories is read, unless withCategories asks for them too.
+	 */
+	public static ProductFields parse(String fields, boolean withCategories) {
+		if (fields == null || fields.isBlank()) {
+			return of(withCategories);
+		}
+		Set<String> requested = new LinkedHashSet<>();
+		requested.add("id");
+		for (String field : fields.split(",")) {
+			String name = field.trim();
+			if (!NAMES.contains(name)) {
+				throw new BadRequestException("Unknown product field: " + name + ", expected one of " + NAMES);
+			}
+			requested.add(name);
+		}
+		Set<String> names = new LinkedHashSet<>();
+		NAMES.stream().filter(requested::contains).forEach(names::add);
+		return new ProductFields(names);
+	}
+
+	public boolean has(String name) {
+		return names.contains(name);
+	}
+
+	public boolean isAll() {
+		return names.size() == NAMES.size();
+	}
+
+	public Set<String> getNames() {
+		return names;
+	}
+
+	/**
+	 * The listing columns to select.
+	 */
+	public List<String> columns() {
+		List<String> columns = new ArrayList<>(names);
+		columns.add("version");
+		columns.add("lastModified");
+		return columns;
+	}
+
+	@Override
+	public int hashCode() {
+		return names.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ProductFields other = (ProductFields) obj;
+		return names.equals(other.names);
+	}
+
+	@Override
+	public String toString() {
+		return String.join(",", names);
+	}
+}
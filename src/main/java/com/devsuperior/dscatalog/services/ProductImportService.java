@@ -0,0 +1,214 @@
+package com.devsuperior.dscatalog.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO;
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO.Status;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ImportResultDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/**
+ * Imports products from a request body that may not fit in memory. Rows are
+ * parsed one at a time and handed to {@link ProductBatchService} in chunks,
+ * each one committed in its own transaction; the next chunk is read only after
+ * the previous one is stored. A chunk that cannot be stored fails all of its
+ * rows and the import goes on with the next one. failed counts every
+ * failing row; failures lists those with the lowest row numbers, at most
+ * MAX_REPORTED_FAILURES of them.
+ */
+@Service
+public class ProductImportService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+	private static final int MAX_REPORTED_FAILURES = 1000;
+
+	private final ProductBatchService batchService;
+
+	private final CategoryRepository categoryRepository;
+
+	private final ObjectMapper objectMapper;
+
+	private final int chunkSize;
+
+	public ProductImportService(ProductBatchService batchService, CategoryRepository categoryRepository,
+			ObjectMapper objectMapper, @Value("${dscatalog.products.import.chunk-size:1000}") int chunkSize) {
+		this.batchService = batchService;
+		this.categoryRepository = categoryRepository;
+		this.objectMapper = objectMapper;
+		this.chunkSize = chunkSize;
+	}
+
+	public ImportResultDTO importNdjson(InputStream in) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		ImportJob job = new ImportJob();
+		String line;
+		int row = 0;
+		while ((line = reader.readLine()) != null) {
+			row++;
+			if (line.isBlank()) {
+				continue;
+			}
+			try {
+				job.add(row, objectMapper.readValue(line, ProductDTO.class));
+			}
+			catch (JsonProcessingException e) {
+				job.fail(row, "Malformed JSON: " + e.getOriginalMessage());
+			}
+		}
+		return job.finish();
+	}
+
+	/**
+	 * Expects a header row with the columns id, name, description, price,
+	 * imgUrl, date and categories (category ids separated by ';'). Rows are
+	 * numbered from 1 after the header. A syntax error stops the import, since
+	 * the parser cannot tell where the next row starts.
+	 */
+	public ImportResultDTO importCsv(InputStream in) throws IOException {
+		CsvMapper mapper = new CsvMapper();
+		CsvSchema schema = CsvSchema.emptySchema().withHeader();
+		ImportJob job = new ImportJob();
+		int row = 0;
+		try (MappingIterator<Map<String, String>> it = mapper.readerFor(Map.class).with(schema).readValues(in)) {
+			while (it.hasNextValue()) {
+				Map<String, String> values = it.nextValue();
+				row++;
+				ProductDTO dto;
+				try {
+					dto = fromCsv(values);
+				}
+				catch (RuntimeException e) {
+					job.fail(row, "Invalid value: " + e.getMessage());
+					continue;
+				}
+				job.add(row, dto);
+			}
+		}
+		catch (JsonProcessingException e) {
+			job.fail(row + 1, "Malformed CSV, import stopped: " + e.getOriginalMessage());
+		}
+		return job.finish();
+	}
+
+	private static ProductDTO fromCsv(Map<String, String> values) {
+		ProductDTO dto = new ProductDTO();
+		dto.setId(isEmpty(values.get("id")) ? null : Long.valueOf(values.get("id")));
+		dto.setName(values.get("name"));
+		dto.setDescription(values.get("description"));
+		dto.setPrice(isEmpty(values.get("price")) ? null : Double.valueOf(values.get("price")));
+		dto.setImgUrl(values.get("imgUrl"));
+		dto.setDate(isEmpty(values.get("date")) ? null : Instant.parse(values.get("date")));
+		String categories = values.get("categories");
+		if (!isEmpty(categories)) {
+			for (String id : categories.split(";")) {
+				dto.getCategories().add(new CategoryDTO(Long.valueOf(id.trim()), null));
+			}
+		}
+		return dto;
+	}
+
+	private static boolean isEmpty(String value) {
+		return value == null || value.isBlank();
+	}
+
+	private class ImportJob {
+
+		private final Set<Long> knownCategoryIds = new HashSet<>(categoryRepository.findAllIds());
+		private final List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+		private final List<Integer> chunkRows = new ArrayList<>(chunkSize);
+		private final ImportResultDTO result = new ImportResultDTO();
+		private final PriorityQueue<BatchItemResultDTO> failures = new PriorityQueue<>(
+				Comparator.comparing(BatchItemResultDTO::getIndex).reversed());
+
+		void add(int row, ProductDTO dto) {
+			chunk.add(dto);
+			chunkRows.add(row);
+			if (chunk.size() == chunkSize) {
+				flush();
+			}
+		}
+
+		void fail(int row, String message) {
+			result.setRows(result.getRows() + 1);
+			result.setFailed(result.getFailed() + 1);
+			// failing rows of a chunk arrive after later rows that failed to parse
+			if (failures.size() < MAX_REPORTED_FAILURES) {
+				failures.add(new BatchItemResultDTO(row, null, Status.FAILED, message));
+			}
+			else if (row < failures.peek().getIndex()) {
+				failures.poll();
+				failures.add(new BatchItemResultDTO(row, null, Status.FAILED, message));
+			}
+		}
+
+		ImportResultDTO finish() {
+			flush();
+			result.getFailures().addAll(failures);
+			result.getFailures().sort(Comparator.comparing(BatchItemResultDTO::getIndex));
+			result.setOmittedFailures(result.getFailed() - result.getFailures().size());
+			logger.info("Product import finished: {} rows, {} created, {} updated, {} failed",
+					result.getRows(), result.getCreated(), result.getUpdated(), result.getFailed());
+			return result;
+		}
+
+		private void flush() {
+			if (chunk.isEmpty()) {
+				return;
+			}
+			List<BatchItemResultDTO> items;
+			try {
+				items = batchService.saveAll(chunk, knownCategoryIds);
+			}
+			catch (RuntimeException e) {
+				logger.warn("Product import chunk of rows {} to {} failed", chunkRows.get(0),
+						chunkRows.get(chunkRows.size() - 1), e);
+				chunkRows.forEach(row -> fail(row, "Chunk not stored: " + e.getMessage()));
+				chunk.clear();
+				chunkRows.clear();
+				return;
+			}
+			for (BatchItemResultDTO item : items) {
+				int row = chunkRows.get(item.getIndex());
+				if (item.getStatus() == Status.FAILED) {
+					fail(row, item.getMessage());
+					continue;
+				}
+				result.setRows(result.getRows() + 1);
+				if (item.getStatus() == Status.CREATED) {
+					result.setCreated(result.getCreated() + 1);
+				}
+				else {
+					result.setUpdated(result.getUpdated() + 1);
+				}
+			}
+			chunk.clear();
+			chunkRows.clear();
+			logger.info("Product import progress: {} rows, {} failed", result.getRows(), result.getFailed());
+		}
+	}
+}
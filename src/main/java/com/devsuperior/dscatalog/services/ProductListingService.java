@@ -0,0 +1,378 @@
+package com.devsuperior.dscatalog.services;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Category;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.entities.ProductListing;
+import com.devsuperior.dscatalog.entities.ProductListingCategory;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.devsuperior.dscatalog.repositories.ProductListingCategoryRepository;
+import com.devsuperior.dscatalog.repositories.ProductListingRepository;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Maintains tb_product_listing, the denormalized read model behind product
+ * listings, and reads it back as DTOs. Product writes replace the rows of
+ * the products they touch and their category links; category renames and
+ * moves find the rows to rewrite through those links, a chunk at a time,
+ * and moves relink the rows to their new ancestors. All writes join the
+ * caller's transaction, so the read model commits or rolls back with the
+ * change it reflects.
+ */
+@Service
+public class ProductListingService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProductListingService.class);
+
+	private static final int CHUNK_SIZE = 500;
+
+	private final ProductListingRepository repository;
+
+	private final ProductListingCategoryRepository linkRepository;
+
+	private final ProductRepository productRepository;
+
+	private final CategoryRepository categoryRepository;
+
+	private final EntityManager entityManager;
+
+	private final ObjectReader reader;
+
+	private final ObjectWriter writer;
+
+	public ProductListingService(ProductListingRepository repository, ProductListingCategoryRepository linkRepository,
+			ProductRepository productRepository, CategoryRepository categoryRepository, EntityManager entityManager,
+			ObjectMapper objectMapper) {
+		this.repository = repository;
+		this.linkRepository = linkRepository;
+		this.productRepository = productRepository;
+		this.categoryRepository = categoryRepository;
+		this.entityManager = entityManager;
+		this.reader = objectMapper.readerFor(CategoryRef[].class);
+		this.writer = objectMapper.writerFor(CategoryRef[].class);
+	}
+
+	@Transactional(readOnly = true)
+	public Page<ProductDTO> findPage(Specification<ProductListing> spec, Pageable pageable, ProductFields fields) {
+		return repository.findPage(spec, pageable, fields.columns()).map(row -> toDTO(row, fields));
+	}
+
+	@Transactional(readOnly = true)
+	public Slice<ProductDTO> findSlice(Specification<ProductListing> spec, Pageable pageable, ProductFields fields) {
+		return repository.findSlice(spec, pageable, fields.columns()).map(row -> toDTO(row, fields));
+	}
+
+	/**
+	 * Writes the rows of products that were just stored. Versions and
+	 * timestamps are copied as they are, so callers pass products that have
+	 * been flushed or newly persisted.
+	 */
+	@Transactional
+	public void productsSaved(Collection<Product> products) {
+		if (products.isEmpty()) {
+			return;
+		}
+		Set<Long> ids = products.stream().map(Product::getId).collect(Collectors.toSet());
+		Map<Long, ProductListing> rows = repository.findAllById(ids).stream()
+				.collect(Collectors.toMap(ProductListing::getId, Function.identity()));
+		write(products, rows);
+	}
+
+	@Transactional
+	public void productDeleted(Long id) {
+		linkRepository.deleteByListingIds(List.of(id));
+		repository.deleteByIds(List.of(id));
+	}
+
+	@Transactional
+	public void pricesAdjusted(Collection<Long> ids, double factor, double amount, Instant now) {
+		repository.adjustPrices(ids, factor, amount, now);
+	}
+
+	@Transactional
+	public void categoryRenamed(Category category) {
+		rewrite((afterId, page) -> linkRepository.findDirectListingIdsAfter(category.getId(), afterId, page),
+				Map.of(category.getId(), category), false);
+	}
+
+	/**
+	 * Rewrites and relinks the rows of every product linked somewhere in the
+	 * subtree of a moved category, given the subtree's categories after the
+	 * move. The moved category stays an ancestor of all of them, so its
+	 * links find the rows while they are relinked.
+	 */
+	@Transactional
+	public void categoriesMoved(Long categoryId, Collection<Category> subtree) {
+		rewrite((afterId, page) -> linkRepository.findListingIdsAfter(categoryId, afterId, page),
+				subtree.stream().collect(Collectors.toMap(Category::getId, Function.identity())), true);
+	}
+
+	/**
+	 * Rebuilds every row from the normalized tables.
+	 */
+	@Transactional
+	public void rebuild() {
+		long start = System.nanoTime();
+		linkRepository.deleteAllRows();
+		repository.deleteAllRows();
+		long count = 0;
+		try (Stream<Product> stream = productRepository.streamAll()) {
+			List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+			Iterator<Product> it = stream.iterator();
+			while (it.hasNext()) {
+				chunk.add(it.next());
+				if (chunk.size() == CHUNK_SIZE || !it.hasNext()) {
+					productRepository.findProductsWithCategories(chunk);
+					write(chunk, Map.of());
+					count += chunk.size();
+					entityManager.flush();
+					entityManager.clear();
+					chunk.clear();
+				}
+			}
+		}
+		logger.info("Product listing rebuilt with {} products in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * Products inserted outside the application, such as by the seed script,
+	 * have no listing row yet; the table is rebuilt when rows are missing.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional
+	public void rebuildIfIncomplete() {
+		if (repository.count() != productRepository.count()) {
+			rebuild();
+		}
+	}
+
+	private void write(Collection<Product> products, Map<Long, ProductListing> rows) {
+		Map<Long, Category> categories = new HashMap<>();
+		Set<Long> missing = new HashSet<>();
+		for (Product product : products) {
+			for (Category category : product.getCategories()) {
+				if (Hibernate.isInitialized(category)) {
+					categories.put(category.getId(), category);
+				}
+				else {
+					missing.add(category.getId());
+				}
+			}
+		}
+		missing.removeAll(categories.keySet());
+		if (!missing.isEmpty()) {
+			categoryRepository.findAllById(missing).forEach(category -> categories.put(category.getId(), category));
+		}
+		Map<Long, List<CategoryRef>> createdRefs = new HashMap<>();
+		Map<Long, List<CategoryRef>> changedRefs = new HashMap<>();
+		for (Product product : products) {
+			ProductListing row = rows.get(product.getId());
+			boolean created = row == null;
+			if (created) {
+				row = new ProductListing(product.getId());
+			}
+			row.setName(product.getName());
+			row.setDescription(product.getDescription());
+			row.setPrice(product.getPrice());
+			row.setImgUrl(product.getImgUrl());
+			row.setDate(product.getDate());
+			row.setVersion(product.getVersion());
+			row.setLastModified(product.getUpdatedAt() != null ? product.getUpdatedAt() : product.getCreatedAt());
+			List<CategoryRef> refs = product.getCategories().stream()
+					.map(category -> new CategoryRef(categories.get(category.getId())))
+					.collect(Collectors.toList());
+			String previous = row.getCategories();
+			setCategories(row, refs);
+			if (created) {
+				entityManager.persist(row);
+				createdRefs.put(row.getId(), refs);
+			}
+			// unchanged categories mean unchanged links, which spares their lookup
+			else if (!row.getCategories().equals(previous)) {
+				changedRefs.put(row.getId(), refs);
+			}
+		}
+		link(createdRefs, false);
+		link(changedRefs, true);
+	}
+
+	/**
+	 * Brings the links of the given rows in line with their categories,
+	 * updating the links that already exist rather than deleting them all.
+	 * Returns the links now managed, so chunked callers can detach them.
+	 */
+	private List<ProductListingCategory> link(Map<Long, List<CategoryRef>> refsByRow, boolean existing) {
+		Map<ProductListingCategory.Key, ProductListingCategory> stale = new HashMap<>();
+		if (existing && !refsByRow.isEmpty()) {
+			for (ProductListingCategory link : linkRepository.findByListingIds(refsByRow.keySet())) {
+				stale.put(new ProductListingCategory.Key(link.getListingId(), link.getCategoryId()), link);
+			}
+		}
+		List<ProductListingCategory> links = new ArrayList<>();
+		refsByRow.forEach((listingId, refs) -> linksOf(refs).forEach((categoryId, direct) -> {
+			ProductListingCategory link = stale.remove(new ProductListingCategory.Key(listingId, categoryId));
+			if (link == null) {
+				link = new ProductListingCategory(listingId, categoryId, direct);
+				entityManager.persist(link);
+			}
+			else {
+				link.setDirect(direct);
+			}
+			links.add(link);
+		}));
+		stale.values().forEach(entityManager::remove);
+		links.addAll(stale.values());
+		return links;
+	}
+
+	/**
+	 * Each linked category, direct, and every ancestor on its path.
+	 */
+	private static Map<Long, Boolean> linksOf(List<CategoryRef> refs) {
+		Map<Long, Boolean> links = new LinkedHashMap<>();
+		for (CategoryRef ref : refs) {
+			for (String id : ref.prefix.split("/")) {
+				if (!id.isEmpty()) {
+					links.merge(Long.valueOf(id), ref.id.equals(Long.valueOf(id)), Boolean::logicalOr);
+				}
+			}
+		}
+		return links;
+	}
+
+	private void rewrite(BiFunction<Long, Pageable, List<Long>> findIds, Map<Long, Category> changed,
+			boolean relink) {
+		Long afterId = 0L;
+		while (true) {
+			List<Long> ids = findIds.apply(afterId, PageRequest.of(0, CHUNK_SIZE));
+			if (ids.isEmpty()) {
+				return;
+			}
+			List<ProductListing> rows = repository.findAllById(ids);
+			Map<Long, List<CategoryRef>> refsByRow = new HashMap<>();
+			for (ProductListing row : rows) {
+				List<CategoryRef> refs = new ArrayList<>(Arrays.asList(read(row.getCategories())));
+				refs.replaceAll(ref -> changed.containsKey(ref.id) ? new CategoryRef(changed.get(ref.id)) : ref);
+				setCategories(row, refs);
+				refsByRow.put(row.getId(), refs);
+			}
+			List<ProductListingCategory> links = relink ? link(refsByRow, true) : List.of();
+			entityManager.flush();
+			rows.forEach(entityManager::detach);
+			links.forEach(entityManager::detach);
+			if (ids.size() < CHUNK_SIZE) {
+				return;
+			}
+			afterId = ids.get(ids.size() - 1);
+		}
+	}
+
+	private void setCategories(ProductListing row, List<CategoryRef> refs) {
+		refs.sort(Comparator.comparing(ref -> ref.id));
+		try {
+			row.setCategories(writer.writeValueAsString(refs.toArray(new CategoryRef[0])));
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not write listing categories", e);
+		}
+	}
+
+	private CategoryRef[] read(String categories) {
+		try {
+			return categories == null ? new CategoryRef[0] : reader.readValue(categories);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not read listing categories", e);
+		}
+	}
+
+	private ProductDTO toDTO(Tuple row, ProductFields fields) {
+		ProductDTO dto = new ProductDTO(row.get("id", Long.class), column(row, fields, "name", String.class),
+				column(row, fields, "description", String.class), column(row, fields, "price", Double.class),
+				column(row, fields, "imgUrl", String.class), column(row, fields, "date", Instant.class));
+		dto.setVersion(row.get("version", Long.class));
+		dto.setLastModified(row.get("lastModified", Instant.class));
+		if (fields.has(ProductFields.CATEGORIES)) {
+			for (CategoryRef ref : read(row.get(ProductFields.CATEGORIES, String.class))) {
+				dto.getCategories().add(ref.toDTO());
+			}
+		}
+		return dto;
+	}
+
+	private static <T> T column(Tuple row, ProductFields fields, String name, Class<T> type) {
+		return fields.has(name) ? row.get(name, type) : null;
+	}
+
+	/**
+	 * What a listing row keeps of each category: the fields of CategoryDTO
+	 * plus its subtree prefix, which names the ancestors it is linked to.
+	 */
+	static class CategoryRef {
+
+		public Long id;
+		public String name;
+		public Long parentId;
+		public Long version;
+		public Instant lastModified;
+		public String prefix;
+
+		CategoryRef() {
+		}
+
+		CategoryRef(Category category) {
+			this.id = category.getId();
+			this.name = category.getName();
+			this.parentId = category.getParent() != null ? category.getParent().getId() : null;
+			this.version = category.getVersion();
+			this.lastModified = category.getUpdatedAt() != null ? category.getUpdatedAt() : category.getCreatedAt();
+			this.prefix = category.getSubtreePrefix();
+		}
+
+		CategoryDTO toDTO() {
+			CategoryDTO dto = new CategoryDTO(id, name);
+			dto.setParentId(parentId);
+			dto.setVersion(version);
+			dto.setLastModified(lastModified);
+			return dto;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.metrics.QueryCounter;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Looks products up by id in batches: the ids asked for within a few
+ * milliseconds of each other are read, with their categories, by one
+ * query in a read-only transaction of its own. That query runs on a
+ * loader thread and is counted once on the thread of every caller it
+ * served, towards its query budget and request metrics. Inside a
+ * transaction the caller already owns, the lookup runs on the caller's
+ * thread, so it sees the caller's own writes.
+ */
+@Component
+public class ProductLoader {
+
+	private final ProductRepository repository;
+
+	private final BatchLoader<Long, ProductDTO> loader;
+
+	private final int maxIds;
+
+	public ProductLoader(ProductRepository repository, PlatformTransactionManager transactionManager,
+			QueryCounter queryCounter,
+			@Value("${dscatalog.loader.max-batch-size:100}") int maxBatchSize,
+			@Value("${dscatalog.loader.window:2ms}") Duration window,
+			@Value("${dscatalog.loader.threads:2}") int threads,
+			@Value("${dscatalog.products.multi-get.max-size:500}") int maxIds) {
+		this.repository = repository;
+		this.maxIds = maxIds;
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		this.loader = new BatchLoader<>("product-loader", maxBatchSize, window, threads, queryCounter,
+				ids -> readOnly.execute(status -> fetch(ids)));
+	}
+
+	/**
+	 * The product with the given id, or null when there is none.
+	 */
+	public ProductDTO load(Long id) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return fetch(List.of(id)).get(id);
+		}
+		return loader.load(id);
+	}
+
+	/**
+	 * The products with the given ids in the order asked for; unknown ids
+	 * are left out.
+	 */
+	public List<ProductDTO> loadAll(Collection<Long> ids) {
+		if (ids.size() > maxIds) {
+			throw new BadRequestException("At most " + maxIds + " products can be fetched at once");
+		}
+		Map<Long, ProductDTO> found;
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			found = fetch(ids);
+		}
+		else {
+			found = loader.loadAll(ids);
+		}
+		List<ProductDTO> list = new ArrayList<>(found.size());
+		ids.stream().distinct().map(found::get).filter(dto -> dto != null).forEach(list::add);
+		return list;
+	}
+
+	@PreDestroy
+	public void close() {
+		loader.close();
+	}
+
+	private Map<Long, ProductDTO> fetch(Collection<Long> ids) {
+		return repository.findWithCategoriesByIdIn(ids).stream()
+				.map(product -> new ProductDTO(product, product.getCategories()))
+				.collect(Collectors.toMap(ProductDTO::getId, Function.identity(), (first, same) -> first));
+	}
+}
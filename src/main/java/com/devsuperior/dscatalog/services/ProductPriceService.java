@@ -0,0 +1,120 @@
+package com.devsuperior.dscatalog.services;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.devsuperior.dscatalog.dto.PriceAdjustmentDTO;
+import com.devsuperior.dscatalog.dto.PriceAdjustmentResultDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.events.PricesAdjustedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * Applies a price change to every product matching a filter without loading
+ * entities. The matching ids are walked in primary key order, a chunk at a
+ * time, and each chunk is one UPDATE committed in its own transaction, so
+ * locks are held briefly and a failure keeps the chunks already applied.
+ * Products whose price would drop below zero are left out. The price ranges
+ * of the affected categories are recomputed once all chunks have run.
+ */
+@Service
+public class ProductPriceService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProductPriceService.class);
+
+	private final ProductRepository repository;
+
+	private final CacheService cacheService;
+
+	private final CategoryStatsService stats;
+
+	private final ProductListingService listing;
+
+	private final ApplicationEventPublisher publisher;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int chunkSize;
+
+	public ProductPriceService(ProductRepository repository, CacheService cacheService,
+			CategoryStatsService stats, ProductListingService listing, ApplicationEventPublisher publisher, PlatformTransactionManager transactionManager,
+			@Value("${dscatalog.products.price-adjustment.chunk-size:1000}") int chunkSize) {
+		this.repository = repository;
+		this.cacheService = cacheService;
+		this.stats = stats;
+		this.listing = listing;
+		this.publisher = publisher;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+	}
+
+	public PriceAdjustmentResultDTO adjust(PriceAdjustmentDTO dto) {
+		if ((dto.getPercent() == null) == (dto.getAmount() == null)) {
+			throw new BadRequestException("Exactly one of percent and amount is required");
+		}
+		if (dto.getPercent() != null && dto.getPercent() <= -100.0) {
+			throw new BadRequestException("Percent must be greater than -100");
+		}
+		double factor = dto.getPercent() != null ? 1.0 + dto.getPercent() / 100.0 : 1.0;
+		double amount = dto.getAmount() != null ? dto.getAmount() : 0.0;
+		Specification<Product> spec = ProductService.toSpecification(dto.toFilter())
+				.and(staysNonNegative(factor, amount));
+
+		long start = System.nanoTime();
+		long updated = 0;
+		int chunks = 0;
+		Long afterId = 0L;
+		Set<Long> categoryIds = new HashSet<>();
+		try {
+			while (true) {
+				Long from = afterId;
+				List<Long> ids = transactionTemplate.execute(status -> adjustChunk(spec, from, factor, amount));
+				if (ids.isEmpty()) {
+					break;
+				}
+				categoryIds.addAll(stats.findCategoryIdsOfProducts(ids));
+				updated += ids.size();
+				chunks++;
+				afterId = ids.get(ids.size() - 1);
+				if (ids.size() < chunkSize) {
+					break;
+				}
+			}
+		}
+		finally {
+			stats.recompute(categoryIds);
+		}
+		logger.info("Adjusted the price of {} products in {} chunks in {} ms", updated, chunks,
+				(System.nanoTime() - start) / 1_000_000);
+		return new PriceAdjustmentResultDTO(updated, chunks);
+	}
+
+	private List<Long> adjustChunk(Specification<Product> spec, Long afterId, double factor, double amount) {
+		List<Long> ids = repository.findIdsAfter(spec, afterId, chunkSize);
+		if (!ids.isEmpty()) {
+			Instant now = Instant.now();
+			repository.adjustPrices(ids, factor, amount, now);
+			listing.pricesAdjusted(ids, factor, amount, now);
+			cacheService.evictProducts(ids);
+			publisher.publishEvent(new PricesAdjustedEvent(ids, factor, amount));
+		}
+		return ids;
+	}
+
+	private static Specification<Product> staysNonNegative(double factor, double amount) {
+		return (root, query, cb) -> cb.greaterThanOrEqualTo(
+				cb.sum(cb.prod(root.<Double>get("price"), factor), amount), 0.0);
+	}
+}
@@ -0,0 +1,273 @@
+package com.devsuperior.dscatalog.services;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.events.PricesAdjustedEvent;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+
+/**
+ * In-memory inverted index over product name and description. It is built
+ * from the database once the application is ready and then follows every
+ * committed {@link ProductChangedEvent} and {@link PricesAdjustedEvent}. Matches must contain every query
+ * term; they are ranked by TF-IDF with name occurrences weighted higher.
+ */
+@Service
+public class ProductSearchService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+	private static final float NAME_WEIGHT = 3.0f;
+
+	private static final Comparator<Hit> RANKING = Comparator.comparingDouble((Hit hit) -> hit.score).reversed()
+			.thenComparing(hit -> hit.doc.id);
+
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+	private static final Set<String> STOP_WORDS = Set.of("a", "o", "as", "os", "de", "da", "do", "das", "dos",
+			"e", "em", "na", "no", "com", "para", "por", "um", "uma", "the", "of", "and");
+
+	private final ProductExportService exportService;
+
+	private final Map<Long, Document> documents = new HashMap<>();
+	private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public ProductSearchService(ProductExportService exportService) {
+		this.exportService = exportService;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			documents.clear();
+			postings.clear();
+			exportService.exportAll(this::add);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+		logger.info("Product search index built with {} products in {} ms", documents.size(),
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		lock.writeLock().lock();
+		try {
+			remove(event.getId());
+			if (!event.isDeleted()) {
+				add(event.getProduct());
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onPricesAdjusted(PricesAdjustedEvent event) {
+		lock.writeLock().lock();
+		try {
+			for (Long id : event.getIds()) {
+				Document doc = documents.get(id);
+				if (doc != null) {
+					doc.price = event.apply(doc.price);
+				}
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public Page<ProductDTO> search(String query, Long categoryId, Double minPrice, Double maxPrice,
+			Pageable pageable) {
+		Set<String> terms = new LinkedHashSet<>(tokenize(query));
+		if (terms.isEmpty()) {
+			throw new BadRequestException("Search query must contain at least one word");
+		}
+		lock.readLock().lock();
+		try {
+			List<Map<Long, Float>> termPostings = new ArrayList<>(terms.size());
+			for (String term : terms) {
+				Map<Long, Float> posting = postings.get(term);
+				if (posting == null) {
+					return Page.empty(pageable);
+				}
+				termPostings.add(posting);
+			}
+			termPostings.sort(Comparator.comparingInt(Map::size));
+
+			// keeps only the best offset + size hits, worst on top, instead of sorting every match
+			int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+			PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+			int total = 0;
+			for (Map.Entry<Long, Float> entry : termPostings.get(0).entrySet()) {
+				Document doc = documents.get(entry.getKey());
+				if (!doc.matches(categoryId, minPrice, maxPrice)) {
+					continue;
+				}
+				float score = 0;
+				for (Map<Long, Float> posting : termPostings) {
+					Float weight = posting.get(doc.id);
+					if (weight == null) {
+						score = -1;
+						break;
+					}
+					score += weight * idf(posting.size());
+				}
+				if (score < 0) {
+					continue;
+				}
+				total++;
+				top.add(new Hit(doc, score));
+				if (top.size() > limit) {
+					top.poll();
+				}
+			}
+
+			List<Hit> ranked = new ArrayList<>(top);
+			ranked.sort(RANKING);
+			int from = (int) Math.min(pageable.getOffset(), ranked.size());
+			List<ProductDTO> content = new ArrayList<>(ranked.size() - from);
+			for (Hit hit : ranked.subList(from, ranked.size())) {
+				content.add(hit.doc.toDTO());
+			}
+			return new PageImpl<>(content, pageable, total);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+		for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+			if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+				tokens.add(token);
+			}
+		}
+		return tokens;
+	}
+
+	private float idf(int documentFrequency) {
+		return (float) Math.log(1.0 + (double) documents.size() / documentFrequency);
+	}
+
+	private void add(ProductDTO dto) {
+		Map<String, Float> weights = new HashMap<>();
+		for (String token : tokenize(dto.getName())) {
+			weights.merge(token, NAME_WEIGHT, Float::sum);
+		}
+		for (String token : tokenize(dto.getDescription())) {
+			weights.merge(token, 1.0f, Float::sum);
+		}
+		Document doc = new Document(dto, weights.keySet().toArray(new String[0]));
+		documents.put(doc.id, doc);
+		weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(doc.id, weight));
+	}
+
+	private void remove(Long id) {
+		Document doc = documents.remove(id);
+		if (doc == null) {
+			return;
+		}
+		for (String term : doc.terms) {
+			Map<Long, Float> posting = postings.get(term);
+			posting.remove(id);
+			if (posting.isEmpty()) {
+				postings.remove(term);
+			}
+		}
+	}
+
+	/**
+	 * The indexed fields of a product. The description is only tokenized, not
+	 * kept, so search results carry every listing field but the description.
+	 */
+	private static class Document {
+
+		private final Long id;
+		private final String name;
+		private Double price;
+		private final String imgUrl;
+		private final Instant date;
+		private final long[] categoryIds;
+		private final String[] terms;
+
+		Document(ProductDTO dto, String[] terms) {
+			this.id = dto.getId();
+			this.name = dto.getName();
+			this.price = dto.getPrice();
+			this.imgUrl = dto.getImgUrl();
+			this.date = dto.getDate();
+			this.categoryIds = dto.getCategories().stream().map(CategoryDTO::getId).mapToLong(Long::longValue).toArray();
+			this.terms = terms;
+		}
+
+		boolean matches(Long categoryId, Double minPrice, Double maxPrice) {
+			if (minPrice != null && (price == null || price < minPrice)) {
+				return false;
+			}
+			if (maxPrice != null && (price == null || price > maxPrice)) {
+				return false;
+			}
+			if (categoryId == null) {
+				return true;
+			}
+			for (long id : categoryIds) {
+				if (id == categoryId) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		ProductDTO toDTO() {
+			return new ProductDTO(id, name, null, price, imgUrl, date);
+		}
+	}
+
+	private static class Hit {
+
+		private final Document doc;
+		private final float score;
+
+		Hit(Document doc, float score) {
+			this.doc = doc;
+			this.score = score;
+		}
+	}
+}
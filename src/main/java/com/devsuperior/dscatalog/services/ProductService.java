@@ -1,50 +1,179 @@
 package com.devsuperior.dscatalog.services;
 
+import java.util.List;
 import java.util.Optional;
-
-import javax.persistence.EntityNotFoundException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.devsuperior.dscatalog.config.CacheConfig;
 import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.dto.ProductPatchDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.entities.ProductListing;
+import com.devsuperior.dscatalog.metrics.QueryBudget;
 import com.devsuperior.dscatalog.repositories.CategoryRepository;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.repositories.ProductSpecifications;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
+import com.devsuperior.dscatalog.services.exceptions.PreconditionFailedException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 
 @Service
 public class ProductService {
 
+	private static final Set<String> CURSOR_SORT_KEYS = Set.of("id", "name", "price");
+
 	private final ProductRepository repository;
 
 	private final CategoryRepository categoryRepository;
 
-	public ProductService(ProductRepository repository , CategoryRepository categoryRepository) {
+	private final ProductCountCache productCount;
+
+	private final ApplicationEventPublisher publisher;
+
+	private final OptimisticRetry retry;
+
+	private final CategoryStatsService stats;
+
+	private final ProductListingService listing;
+
+	private final ProductLoader loader;
+
+	public ProductService(ProductRepository repository , CategoryRepository categoryRepository,
+			ProductCountCache productCount, ApplicationEventPublisher publisher, OptimisticRetry retry,
+			CategoryStatsService stats, ProductListingService listing, ProductLoader loader) {
 		this.repository = repository;
 		this.categoryRepository = categoryRepository;
+		this.productCount = productCount;
+		this.publisher = publisher;
+		this.retry = retry;
+		this.stats = stats;
+		this.listing = listing;
+		this.loader = loader;
 	}
 	
+	/**
+	 * Listings read the denormalized product listing table, one row per
+	 * product with its categories, so no page joins or loads entities. Only
+	 * the columns of the requested fields are read; the description and the
+	 * categories in particular are left out unless asked for. The estimated
+	 * count only describes the whole catalog, so filtered listings count
+	 * exactly unless counting is turned off. A category filter that includes
+	 * descendants checks that the category exists first.
+	 */
+	@Coalesced
 	@Transactional(readOnly = true)
-	public Page<ProductDTO> findAllPaged(Pageable pageable) {
-		Page<Product> list = repository.findAll(pageable);
-		return list.map(ProductDTO::new);
+	@QueryBudget(3)
+	public Slice<ProductDTO> findAllPaged(ProductFilterDTO filter, Pageable pageable, CountMode count,
+			ProductFields fields) {
+		if (filter.isEmpty()) {
+			return findAllPaged(pageable, count, fields);
+		}
+		Specification<ProductListing> spec = toListingSpecification(filter);
+		if (filter.isIncludeDescendants() && filter.getCategoryId() != null) {
+			if (!categoryRepository.existsById(filter.getCategoryId())) {
+				throw new ResourceNotFoundException("Category not found " + filter.getCategoryId());
+			}
+			spec = spec.and(ProductSpecifications.listedInCategoryTree(filter.getCategoryId()));
+		}
+		return count == CountMode.NONE
+				? listing.findSlice(spec, pageable, fields)
+				: listing.findPage(spec, pageable, fields);
+	}
+
+	private Slice<ProductDTO> findAllPaged(Pageable pageable, CountMode count, ProductFields fields) {
+		if (count == CountMode.EXACT) {
+			return listing.findPage(null, pageable, fields);
+		}
+		Slice<ProductDTO> slice = listing.findSlice(null, pageable, fields);
+		List<ProductDTO> content = slice.getContent();
+		if (count == CountMode.NONE) {
+			return new SliceImpl<>(content, pageable, slice.hasNext());
+		}
+		// the cached count may lag behind inserts and deletes; keep it
+		// consistent with the rows this page actually found
+		long seen = pageable.getOffset() + content.size();
+		long total = slice.hasNext() ? Math.max(productCount.get(), seen + 1) : seen;
+		return new PageImpl<>(content, pageable, total);
 	}
 
 	@Transactional(readOnly = true)
+	@QueryBudget(1)
+	public CursorPageDTO<ProductDTO> findAllByCursor(String after, Pageable pageable) {
+		String key;
+		Slice<Product> slice;
+		if (after == null || after.isEmpty()) {
+			key = KeysetCursor.sortKey(pageable.getSort(), CURSOR_SORT_KEYS);
+			slice = findFirstSlice(key, KeysetCursor.pageOf(key, pageable.getPageSize()));
+		}
+		else {
+			KeysetCursor cursor = KeysetCursor.decode(after, CURSOR_SORT_KEYS);
+			key = cursor.getKey();
+			slice = findSliceAfter(cursor, KeysetCursor.pageOf(key, pageable.getPageSize()));
+		}
+		String next = null;
+		if (slice.hasNext()) {
+			Product last = slice.getContent().get(slice.getNumberOfElements() - 1);
+			next = cursorOf(key, last).encode();
+		}
+		return new CursorPageDTO<>(slice.map(ProductDTO::new).getContent(), pageable.getPageSize(), next);
+	}
+
+	/**
+	 * Lookups that miss the cache are batched with the ones of other
+	 * requests by ProductLoader, which runs the query on its own thread.
+	 */
+	@Cacheable(value = CacheConfig.PRODUCTS, key = "#id", sync = true)
+	@Coalesced
+	@QueryBudget(1)
 	public ProductDTO findById(Long id) {
-		Optional<Product> obj = repository.findById(id);
-		Product entity = obj.orElseThrow(() -> new ResourceNotFoundException("Entity not found"));
-		return new ProductDTO(entity, entity.getCategories());
+		ProductDTO dto = loader.load(id);
+		if (dto == null) {
+			throw new ResourceNotFoundException("Entity not found");
+		}
+		return dto;
+	}
+
+	/**
+	 * A single product with only the requested fields, read from its listing
+	 * row without a join.
+	 */
+	@Transactional(readOnly = true)
+	@QueryBudget(1)
+	public ProductDTO findById(Long id, ProductFields fields) {
+		return listing.findSlice(ProductSpecifications.hasId(id), PageRequest.of(0, 1), fields).stream()
+				.findFirst()
+				.orElseThrow(() -> new ResourceNotFoundException("Entity not found"));
+	}
+
+	/**
+	 * One query per batch of the loader, at most five for the 500 ids a
+	 * request may ask for with the default batch size of 100.
+	 */
+	@QueryBudget(5)
+	public List<ProductDTO> findAllById(List<Long> ids) {
+		return loader.loadAll(ids);
 	}
 
 	@Transactional
@@ -52,25 +181,101 @@ public class ProductService {
 		Product entity = new Product();
 		copyDtoToEntity(dto, entity);
 		entity = repository.save(entity);
+		stats.productChanged(null, null, entity.getPrice(), categoryIds(entity));
+		listing.productsSaved(List.of(entity));
+		publisher.publishEvent(ProductChangedEvent.saved(entity, dto.getCategories()));
 		return new ProductDTO(entity);
 	}
 
-	@Transactional
+	@CacheEvict(value = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_JSON }, key = "#id")
 	public ProductDTO update(Long id, ProductDTO dto) {
-		try {
-			Product entity = repository.getOne(id);
+		return update(id, dto, null);
+	}
+
+	/**
+	 * Applies the update only if the stored product is still at
+	 * {@code expectedVersion} (any version when null). A concurrent writer
+	 * that commits first makes the flush fail on the version check; the
+	 * update is then retried on a fresh read, or rejected with a precondition
+	 * failure when the caller pinned the version it had seen.
+	 */
+	@CacheEvict(value = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_JSON }, key = "#id")
+	public ProductDTO update(Long id, ProductDTO dto, Long expectedVersion) {
+		return retry.execute(() -> {
+			Product entity = findForUpdate(id, expectedVersion);
+			Double oldPrice = entity.getPrice();
+			Set<Long> oldCategoryIds = categoryIds(entity);
 			copyDtoToEntity(dto, entity);
-			entity = repository.save(entity);
+			entity = repository.saveAndFlush(entity);
+			stats.productChanged(oldPrice, oldCategoryIds, entity.getPrice(), categoryIds(entity));
+			listing.productsSaved(List.of(entity));
+			publisher.publishEvent(ProductChangedEvent.saved(entity, dto.getCategories()));
 			return new ProductDTO(entity);
+		});
+	}
+
+	/**
+	 * Changes only the fields present in {@code dto}. With dynamic update the
+	 * UPDATE sets just the changed columns, and the category links are
+	 * diffed, so a price change leaves tb_product_category untouched.
+	 */
+	@CacheEvict(value = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_JSON }, key = "#id")
+	public ProductDTO patch(Long id, ProductPatchDTO dto, Long expectedVersion) {
+		return retry.execute(() -> {
+			Product entity = findForUpdate(id, expectedVersion);
+			Double oldPrice = entity.getPrice();
+			Set<Long> oldCategoryIds = categoryIds(entity);
+			if (dto.getName() != null) {
+				entity.setName(dto.getName());
+			}
+			if (dto.getDescription() != null) {
+				entity.setDescription(dto.getDescription());
+			}
+			if (dto.getPrice() != null) {
+				entity.setPrice(dto.getPrice());
+			}
+			if (dto.getImgUrl() != null) {
+				entity.setImgUrl(dto.getImgUrl());
+			}
+			if (dto.getDate() != null) {
+				entity.setDate(dto.getDate());
+			}
+			List<CategoryDTO> categories = dto.getCategories();
+			if (categories != null) {
+				replaceCategories(entity, categories, categoryRepository::getOne);
+			}
+			else {
+				categories = entity.getCategories().stream().map(CategoryDTO::new).collect(Collectors.toList());
+			}
+			entity = repository.saveAndFlush(entity);
+			stats.productChanged(oldPrice, oldCategoryIds, entity.getPrice(), categoryIds(entity));
+			listing.productsSaved(List.of(entity));
+			publisher.publishEvent(ProductChangedEvent.saved(entity, categories));
+			return new ProductDTO(entity);
+		});
+	}
+
+	private Product findForUpdate(Long id, Long expectedVersion) {
+		Product entity = repository.findWithCategoriesById(id)
+				.orElseThrow(() -> new ResourceNotFoundException("Id not found " + id));
+		if (expectedVersion != null && !expectedVersion.equals(entity.getVersion())) {
+			throw new PreconditionFailedException("Product " + id + " was modified by another request");
 		}
-		catch (EntityNotFoundException e) {
-			throw new ResourceNotFoundException("Id not found " + id);
-		}		
+		return entity;
 	}
 
+	@CacheEvict(value = { CacheConfig.PRODUCTS, CacheConfig.PRODUCT_JSON }, key = "#id")
 	public void delete(Long id) {
 		try {
-			repository.deleteById(id);
+			retry.execute(() -> {
+				Optional<Product> entity = repository.findWithCategoriesById(id);
+				repository.deleteById(id);
+				repository.flush();
+				entity.ifPresent(x -> stats.productChanged(x.getPrice(), categoryIds(x), null, null));
+				listing.productDeleted(id);
+				return null;
+			});
+			publisher.publishEvent(ProductChangedEvent.deleted(id));
 		}
 		catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id not found " + id);
@@ -80,18 +285,89 @@ public class ProductService {
 		}
 	}
 	
+	private static Set<Long> categoryIds(Product entity) {
+		return entity.getCategories().stream().map(Category::getId).collect(Collectors.toSet());
+	}
+
+	private Slice<Product> findFirstSlice(String key, Pageable pageable) {
+		switch (key) {
+		case "name":
+			return repository.findSliceByName(pageable);
+		case "price":
+			return repository.findSliceByPrice(pageable);
+		default:
+			return repository.findSlice(pageable);
+		}
+	}
+
+	private Slice<Product> findSliceAfter(KeysetCursor cursor, Pageable pageable) {
+		switch (cursor.getKey()) {
+		case "name":
+			return cursor.getValue() == null ? repository.findSliceAfterNullName(cursor.getId(), pageable)
+					: repository.findSliceAfterName(cursor.getValue(), cursor.getId(), pageable);
+		case "price":
+			return cursor.getValue() == null ? repository.findSliceAfterNullPrice(cursor.getId(), pageable)
+					: repository.findSliceAfterPrice(cursor.getValueAsDouble(), cursor.getId(), pageable);
+		default:
+			return repository.findSliceAfterId(cursor.getId(), pageable);
+		}
+	}
+
+	private static KeysetCursor cursorOf(String key, Product last) {
+		switch (key) {
+		case "name":
+			return new KeysetCursor(key, last.getId(), last.getName());
+		case "price":
+			return new KeysetCursor(key, last.getId(), last.getPrice() == null ? null : String.valueOf(last.getPrice()));
+		default:
+			return new KeysetCursor(key, last.getId(), null);
+		}
+	}
+
 	private void copyDtoToEntity(ProductDTO dto, Product entity) {
 
+		copyFieldsToEntity(dto, entity);
+		replaceCategories(entity, dto.getCategories(), categoryRepository::getOne);
+	}	
+
+	static Specification<Product> toSpecification(ProductFilterDTO filter) {
+		Long categoryId = filter.isIncludeDescendants() ? null : filter.getCategoryId();
+		return Specification.where(ProductSpecifications.hasCategory(categoryId))
+				.and(ProductSpecifications.priceAtLeast(filter.getMinPrice()))
+				.and(ProductSpecifications.priceAtMost(filter.getMaxPrice()))
+				.and(ProductSpecifications.nameStartsWith(filter.getName()));
+	}
+
+	static Specification<ProductListing> toListingSpecification(ProductFilterDTO filter) {
+		Long categoryId = filter.isIncludeDescendants() ? null : filter.getCategoryId();
+		return Specification.where(ProductSpecifications.listedInCategory(categoryId))
+				.and(ProductSpecifications.<ProductListing>priceAtLeast(filter.getMinPrice()))
+				.and(ProductSpecifications.priceAtMost(filter.getMaxPrice()))
+				.and(ProductSpecifications.nameStartsWith(filter.getName()));
+	}
+
+	static void copyFieldsToEntity(ProductDTO dto, Product entity) {
 		entity.setName(dto.getName());
 		entity.setDescription(dto.getDescription());
 		entity.setDate(dto.getDate());
 		entity.setImgUrl(dto.getImgUrl());
 		entity.setPrice(dto.getPrice());
-		
-		entity.getCategories().clear();
-		for (CategoryDTO catDto : dto.getCategories()) {
-			Category category = categoryRepository.getOne(catDto.getId());
-			entity.getCategories().add(category);			
+	}
+
+	/**
+	 * Removes the links that are no longer wanted and adds only the new ones.
+	 * Clearing the set and adding references instead would make Hibernate
+	 * delete and re-insert every row, since a reference never equals the
+	 * loaded category.
+	 */
+	static void replaceCategories(Product entity, List<CategoryDTO> categories, Function<Long, Category> reference) {
+		Set<Long> wanted = categories.stream().map(CategoryDTO::getId).collect(Collectors.toSet());
+		entity.getCategories().removeIf(category -> !wanted.contains(category.getId()));
+		for (Category category : entity.getCategories()) {
+			wanted.remove(category.getId());
 		}
-	}	
+		for (Long categoryId : wanted) {
+			entity.getCategories().add(reference.apply(categoryId));
+		}
+	}
 }
@@ -0,0 +1,93 @@
+package com.devsuperior.dscatalog.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs at most one load per key at a time. A caller that asks for a key
+ * while its load is still running waits for that load and gets the same
+ * result, or the same exception, instead of starting its own. The key is
+ * forgotten as soon as the load finishes, so nothing is cached: the next
+ * caller loads again. A caller passing a later epoch than the running load
+ * started with does not join it but starts a load of its own, which later
+ * callers then join.
+ */
+public class SingleFlight<K, V> {
+
+	@FunctionalInterface
+	public interface Loader<V> {
+
+		V load() throws Throwable;
+	}
+
+	private final ConcurrentMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+	public V execute(K key, Loader<V> loader) throws Throwable {
+		return execute(key, 0, loader);
+	}
+
+	public V execute(K key, long epoch, Loader<V> loader) throws Throwable {
+		Call<V> call = new Call<>(epoch);
+		while (true) {
+			Call<V> running = calls.putIfAbsent(key, call);
+			if (running == null) {
+				break;
+			}
+			if (running.epoch >= epoch) {
+				return running.join();
+			}
+			if (calls.replace(key, running, call)) {
+				break;
+			}
+		}
+		try {
+			V value = loader.load();
+			call.result.complete(value);
+			return value;
+		}
+		catch (Throwable e) {
+			call.result.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			calls.remove(key, call);
+		}
+	}
+
+	/**
+	 * Callers currently waiting on a running load, not counting the ones
+	 * running them.
+	 */
+	public int waiting() {
+		return calls.values().stream().mapToInt(call -> call.waiting.get()).sum();
+	}
+
+	private static class Call<V> {
+
+		private final long epoch;
+
+		private final CompletableFuture<V> result = new CompletableFuture<>();
+
+		private final AtomicInteger waiting = new AtomicInteger();
+
+		private Call(long epoch) {
+			this.epoch = epoch;
+		}
+
+		private V join() throws Throwable {
+			waiting.incrementAndGet();
+			try {
+				return result.get();
+			}
+			catch (ExecutionException e) {
+				throw e.getCause();
+			}
+			finally {
+				waiting.decrementAndGet();
+			}
+		}
+	}
+}
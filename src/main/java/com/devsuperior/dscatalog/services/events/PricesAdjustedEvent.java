@@ -0,0 +1,38 @@
+package com.devsuperior.dscatalog.services.events;
+
+import java.util.List;
+
+/**
+ * Published once per committed chunk of a bulk price adjustment. Carries the
+ * change instead of product snapshots, since the rows were updated in the
+ * database without being loaded: each listed price became
+ * {@code price * factor + amount}.
+ */
+public class PricesAdjustedEvent {
+
+	private final List<Long> ids;
+	private final double factor;
+	private final double amount;
+
+	public PricesAdjustedEvent(List<Long> ids, double factor, double amount) {
+		this.ids = ids;
+		this.factor = factor;
+		this.amount = amount;
+	}
+
+	public List<Long> getIds() {
+		return ids;
+	}
+
+	public double getFactor() {
+		return factor;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	public Double apply(Double price) {
+		return price == null ? null : price * factor + amount;
+	}
+}
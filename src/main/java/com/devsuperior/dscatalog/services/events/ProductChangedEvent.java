@@ -0,0 +1,45 @@
+package com.devsuperior.dscatalog.services.events;
+
+import java.util.List;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+
+/**
+ * Published by every write path after a product is stored or removed, so
+ * in-memory structures derived from the catalog can follow it. The snapshot
+ * categories always carry the id, but not necessarily the name.
+ */
+public class ProductChangedEvent {
+
+	private final Long id;
+	private final ProductDTO product;
+
+	private ProductChangedEvent(Long id, ProductDTO product) {
+		this.id = id;
+		this.product = product;
+	}
+
+	public static ProductChangedEvent saved(Product entity, List<CategoryDTO> categories) {
+		ProductDTO product = new ProductDTO(entity);
+		categories.forEach(cat -> product.getCategories().add(new CategoryDTO(cat.getId(), cat.getName())));
+		return new ProductChangedEvent(entity.getId(), product);
+	}
+
+	public static ProductChangedEvent deleted(Long id) {
+		return new ProductChangedEvent(id, null);
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public ProductDTO getProduct() {
+		return product;
+	}
+
+	public boolean isDeleted() {
+		return product == null;
+	}
+}
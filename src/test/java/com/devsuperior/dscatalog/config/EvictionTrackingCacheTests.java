@@ -0,0 +1,65 @@
+package com.devsuperior.dscatalog.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.List;
+
+class EvictionTrackingCacheTests {
+
+    private CacheEvictions evictions;
+    private EvictionTrackingCache cache;
+
+    @BeforeEach
+    void setup() {
+        evictions = new CacheEvictions();
+        cache = new EvictionTrackingCache(CacheConfig.PRODUCTS, Caffeine.newBuilder().build(), true, evictions);
+    }
+
+    @Test
+    void getShouldStoreLoadedValue() {
+
+        Assertions.assertEquals("product 1", cache.get(1L, () -> "product 1"));
+
+        Assertions.assertEquals("product 1", cache.get(1L, String.class));
+        Assertions.assertEquals("product 1", cache.get(1L, () -> "loaded again"));
+    }
+
+    @Test
+    void getShouldReturnButNotStoreValueLoadedWhileKeyWasEvicted() {
+
+        final String value = cache.get(1L, () -> {
+            cache.evict(1L);
+            return "read before commit";
+        });
+
+        Assertions.assertEquals("read before commit", value);
+        Assertions.assertNull(cache.get(1L));
+        Assertions.assertEquals(1, evictions.count());
+    }
+
+    @Test
+    void getShouldNotStoreValueLoadedWhileCacheWasFiltered() {
+
+        cache.get(1L, () -> {
+            cache.evictIf(value -> false);
+            return "read before commit";
+        });
+
+        Assertions.assertNull(cache.get(1L));
+    }
+
+    @Test
+    void getShouldStoreValueLoadedAfterEviction() {
+
+        cache.evictAll(List.of(1L, 2L));
+
+        cache.get(1L, () -> "read after commit");
+
+        Assertions.assertEquals("read after commit", cache.get(1L, String.class));
+        Assertions.assertEquals(2, evictions.count());
+    }
+}
@@ -0,0 +1,291 @@
+package com.devsuperior.dscatalog.loadtest;
+
+import com.devsuperior.dscatalog.services.CategoryStatsService;
+import com.devsuperior.dscatalog.services.ProductListingService;
+import com.devsuperior.dscatalog.services.ProductSearchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Seeds a synthetic catalog with a nested category taxonomy and drives a
+ * weighted mix of reads and writes against every /products and /categories
+ * endpoint over real HTTP, then
+ * prints throughput and latency percentiles per operation and writes them
+ * to target/loadtest-results.csv.
+ *
+ * Run with: mvn test -Dtest=CatalogLoadTestIT -Dloadtest=true
+ *
+ * Tunables (system properties, defaults in brackets): loadtest.products
+ * [1000000], loadtest.categories [10000], loadtest.fanout [4],
+ * loadtest.threads [16], loadtest.warmup [10] and loadtest.duration [60]
+ * seconds, loadtest.seed [42]. To run against a local Postgres add
+ * -Dspring.datasource.url=jdbc:postgresql://localhost:5432/dscatalog
+ * -Dspring.datasource.username=... -Dspring.datasource.password=...
+ * -Dspring.jpa.hibernate.ddl-auto=create on an empty database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class CatalogLoadTestIT {
+
+    private static final int PRODUCTS = Integer.getInteger("loadtest.products", 1_000_000);
+    private static final int CATEGORIES = Integer.getInteger("loadtest.categories", 10_000);
+    private static final int FANOUT = Integer.getInteger("loadtest.fanout", 4);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 16);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration", 60);
+    private static final long SEED = Long.getLong("loadtest.seed", 42L);
+
+    private static final String[] SORTS = { "id", "name", "price" };
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductSearchService searchService;
+
+    @Autowired
+    private CategoryStatsService statsService;
+
+    @Autowired
+    private ProductListingService listingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Queue<Long> createdProducts = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> createdCategories = new ConcurrentLinkedQueue<>();
+
+    private CatalogSeeder.SeededCatalog catalog;
+
+    @Test
+    void mixedWorkload() throws Exception {
+
+        final long seedStart = System.nanoTime();
+        catalog = new CatalogSeeder(jdbcTemplate, SEED).seed(CATEGORIES, PRODUCTS, FANOUT);
+        System.out.printf(Locale.ROOT, "seeded %d products and %d categories in %.1f s%n",
+                PRODUCTS, CATEGORIES, (System.nanoTime() - seedStart) / 1e9);
+        searchService.rebuild();
+        statsService.recomputeAll();
+        listingService.rebuild();
+
+        final List<Operation> operations = operations();
+        run(operations, WARMUP_SECONDS, new LatencyRecorder());
+
+        final LatencyRecorder recorder = new LatencyRecorder();
+        final double seconds = run(operations, DURATION_SECONDS, recorder);
+        recorder.print(seconds);
+        recorder.writeCsv(Path.of("target", "loadtest-results.csv"), seconds);
+    }
+
+    private List<Operation> operations() {
+        final List<Operation> ops = new ArrayList<>();
+
+        ops.add(new Operation("GET /products", 220, r -> get("/products?page=" + r.nextInt(100)
+                + "&size=12&sort=" + SORTS[r.nextInt(SORTS.length)])));
+        ops.add(new Operation("GET /products count=NONE", 40, r -> get("/products?page=" + r.nextInt(1000)
+                + "&size=12&count=NONE&withCategories=true")));
+        ops.add(new Operation("GET /products filtered", 120, r -> get("/products?categoryId=" + randomCategory(r)
+                + "&minPrice=" + r.nextInt(100) + "&maxPrice=" + (100 + r.nextInt(400)) + "&size=12&sort=price")));
+        ops.add(new Operation("GET /products subtree", 40, r -> get("/products?categoryId=" + randomCategory(r)
+                + "&includeDescendants=true&size=12&count=NONE")));
+        ops.add(new Operation("GET /products?after", 50, r -> get("/products?size=12&after=" + idCursor(randomProduct(r)))));
+        ops.add(new Operation("GET /products/search", 50, r -> get("/products/search?q="
+                + CatalogSeeder.WORDS[r.nextInt(CatalogSeeder.WORDS.length)] + "&size=12")));
+        ops.add(new Operation("GET /products/facets", 50, r -> get("/products/facets?categoryId=" + randomCategory(r)
+                + "&minPrice=" + r.nextInt(100) + "&maxPrice=" + (100 + r.nextInt(400)) + "&size=12&sort=price")));
+        ops.add(new Operation("GET /products/export", 1, r -> get("/products/export")));
+        ops.add(new Operation("GET /products/{id}", 250, r -> get("/products/" + randomProduct(r))));
+        ops.add(new Operation("POST /products", 40, r -> send("POST", "/products", productJson(r, null)))
+                .capturingId(createdProducts));
+        ops.add(new Operation("PUT /products/{id}", 40, r -> {
+            final long id = randomProduct(r);
+            return send("PUT", "/products/" + id, productJson(r, id));
+        }));
+        ops.add(new Operation("DELETE /products/{id}", 20, r -> {
+            final Long id = createdProducts.poll();
+            return id == null ? null : send("DELETE", "/products/" + id, null);
+        }));
+        ops.add(new Operation("POST /products/batch", 5, r -> {
+            final StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < 50; i++) {
+                body.append(i == 0 ? "" : ",").append(productJson(r, null));
+            }
+            return send("POST", "/products/batch", body.append(']').toString());
+        }));
+        ops.add(new Operation("POST /products/import", 4, r -> {
+            final StringBuilder body = new StringBuilder();
+            for (int i = 0; i < 50; i++) {
+                body.append(productJson(r, null)).append('\n');
+            }
+            return HttpRequest.newBuilder(uri("/products/import"))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+        }));
+        ops.add(new Operation("GET /categories", 40, r -> get("/categories?page=" + r.nextInt(50) + "&size=20")));
+        ops.add(new Operation("GET /categories?after", 10, r -> get("/categories?size=20&after="
+                + idCursor(randomCategory(r)))));
+        ops.add(new Operation("GET /categories/{id}", 40, r -> get("/categories/" + randomCategory(r))));
+        ops.add(new Operation("GET /categories/{id}/subtree", 10, r -> get("/categories/" + randomCategory(r)
+                + "/subtree")));
+        ops.add(new Operation("GET /categories/{id}/breadcrumbs", 20, r -> get("/categories/" + randomCategory(r)
+                + "/breadcrumbs")));
+        ops.add(new Operation("GET /categories/stats", 20, r -> get("/categories/stats?parentId="
+                + randomCategory(r))));
+        ops.add(new Operation("POST /categories", 5, r -> send("POST", "/categories",
+                "{\"name\":\"Load " + r.nextInt(1_000_000) + "\"}")).capturingId(createdCategories));
+        ops.add(new Operation("PUT /categories/{id}", 5, r -> {
+            final long id = randomCategory(r);
+            return send("PUT", "/categories/" + id, "{\"name\":\"Category " + id + "\"}");
+        }));
+        ops.add(new Operation("DELETE /categories/{id}", 5, r -> {
+            final Long id = createdCategories.poll();
+            return id == null ? null : send("DELETE", "/categories/" + id, null);
+        }));
+        return ops;
+    }
+
+    private double run(List<Operation> operations, int seconds, LatencyRecorder recorder) throws Exception {
+        final int totalWeight = operations.stream().mapToInt(x -> x.weight).sum();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final Random random = new Random(SEED + t);
+            executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    execute(pick(operations, totalWeight, random), random, recorder);
+                }
+                return null;
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(seconds + 300L, TimeUnit.SECONDS));
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private void execute(Operation operation, Random random, LatencyRecorder recorder) {
+        final HttpRequest request = operation.request.apply(random);
+        if (request == null) {
+            return;
+        }
+        final long start = System.nanoTime();
+        boolean ok;
+        try {
+            if (operation.createdIds != null) {
+                final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                ok = response.statusCode() / 100 == 2;
+                if (ok) {
+                    operation.createdIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+                }
+            }
+            else {
+                ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+            }
+        }
+        catch (Exception e) {
+            ok = false;
+        }
+        recorder.record(operation.name, System.nanoTime() - start, ok);
+    }
+
+    private static Operation pick(List<Operation> operations, int totalWeight, Random random) {
+        int n = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            n -= operation.weight;
+            if (n < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private long randomProduct(Random random) {
+        return catalog.firstProductId + (long) (random.nextDouble() * (catalog.lastProductId - catalog.firstProductId + 1));
+    }
+
+    private long randomCategory(Random random) {
+        return catalog.categoryIds.get(random.nextInt(catalog.categoryIds.size()));
+    }
+
+    private String productJson(Random random, Long id) {
+        return "{" + (id == null ? "" : "\"id\":" + id + ",")
+                + "\"name\":\"Load product " + random.nextInt(1_000_000) + "\","
+                + "\"description\":\"Generated by the load test\","
+                + "\"price\":" + (1 + random.nextInt(5000)) + ".0,"
+                + "\"imgUrl\":\"https://img.example.com/load.jpg\","
+                + "\"date\":\"2021-01-01T00:00:00Z\","
+                + "\"categories\":[{\"id\":" + randomCategory(random) + "}]}";
+    }
+
+    private static String idCursor(long id) {
+        final String raw = "id|" + id + "|";
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String json) {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path));
+        if (json == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static class Operation {
+
+        final String name;
+        final int weight;
+        final Function<Random, HttpRequest> request;
+        Queue<Long> createdIds;
+
+        Operation(String name, int weight, Function<Random, HttpRequest> request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+
+        Operation capturingId(Queue<Long> createdIds) {
+            this.createdIds = createdIds;
+            return this;
+        }
+    }
+}
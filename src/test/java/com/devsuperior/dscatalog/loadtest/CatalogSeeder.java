@@ -0,0 +1,151 @@
+package com.devsuperior.dscatalog.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes a synthetic catalog straight through JDBC. Only portable SQL is
+ * used so the same seeder fills the in-memory H2 database or a local
+ * Postgres. Category popularity is skewed, so a few categories hold a large
+ * share of the products, as in a real catalog.
+ */
+class CatalogSeeder {
+
+    static final String[] WORDS = {
+            "smart", "gamer", "pro", "ultra", "mini", "max", "wireless", "portable", "classic", "digital",
+            "notebook", "monitor", "keyboard", "mouse", "headset", "camera", "speaker", "tablet", "phone", "watch",
+            "book", "novel", "guide", "edition", "collection", "chair", "desk", "lamp", "cable", "charger"
+    };
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+
+    CatalogSeeder(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new Random(seed);
+    }
+
+    SeededCatalog seed(int categories, int products, int maxCategoriesPerProduct) {
+
+        final Timestamp now = Timestamp.from(Instant.now());
+        final List<Object[]> categoryRows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < categories; i++) {
+            categoryRows.add(new Object[] { "Category " + i, "/", now });
+            if (categoryRows.size() == BATCH_SIZE || i == categories - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO tb_category (name, path, created_at) VALUES (?, ?, ?)",
+                        categoryRows);
+                categoryRows.clear();
+            }
+        }
+        final List<Long> categoryIds = jdbcTemplate.queryForList("SELECT id FROM tb_category ORDER BY id", Long.class);
+        nest(categoryIds.subList(categoryIds.size() - categories, categoryIds.size()));
+
+        final Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tb_product", Long.class);
+        final long firstProductId = (maxId == null ? 0L : maxId) + 1;
+        final List<Object[]> productRows = new ArrayList<>(BATCH_SIZE);
+        final List<Object[]> linkRows = new ArrayList<>(BATCH_SIZE * 2);
+        for (int i = 0; i < products; i++) {
+            final long id = firstProductId + i;
+            productRows.add(new Object[] { id, productName(id), description(), price(),
+                    "https://img.example.com/" + id + ".jpg", Timestamp.from(Instant.now().minusSeconds(id)) });
+            for (Long categoryId : pickCategories(categoryIds, maxCategoriesPerProduct)) {
+                linkRows.add(new Object[] { id, categoryId });
+            }
+            if (productRows.size() == BATCH_SIZE || i == products - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, description, price, img_url, date) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)", productRows);
+                jdbcTemplate.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)",
+                        linkRows);
+                productRows.clear();
+                linkRows.clear();
+            }
+        }
+        final long lastProductId = firstProductId + products - 1;
+        jdbcTemplate.execute("ALTER SEQUENCE tb_product_seq RESTART WITH " + (lastProductId + 1));
+
+        return new SeededCatalog(categoryIds, firstProductId, lastProductId);
+    }
+
+    /**
+     * Turns the seeded categories into a forest: the first 1% stay roots and
+     * every other one goes under a random earlier category, which yields a
+     * taxonomy a handful of levels deep.
+     */
+    private void nest(List<Long> ids) {
+        final int roots = Math.max(1, ids.size() / 100);
+        final Map<Long, String> prefixes = new HashMap<>();
+        final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < ids.size(); i++) {
+            final Long id = ids.get(i);
+            String path = "/";
+            if (i >= roots) {
+                final Long parentId = ids.get(random.nextInt(i));
+                path = prefixes.get(parentId);
+                rows.add(new Object[] { parentId, path, id });
+            }
+            prefixes.put(id, path + id + "/");
+            if (rows.size() == BATCH_SIZE || (i == ids.size() - 1 && !rows.isEmpty())) {
+                jdbcTemplate.batchUpdate("UPDATE tb_category SET parent_id = ?, path = ? WHERE id = ?", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    private String productName(long id) {
+        return capitalize(word()) + " " + capitalize(word()) + " " + id;
+    }
+
+    private String description() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            sb.append(i == 0 ? capitalize(word()) : word()).append(' ');
+        }
+        return sb.append("and more.").toString();
+    }
+
+    private double price() {
+        // log-normal around 150 with a long tail of expensive items
+        return Math.round(Math.exp(5.0 + random.nextGaussian()) * 100.0) / 100.0;
+    }
+
+    private Set<Long> pickCategories(List<Long> categoryIds, int max) {
+        final int count = 1 + (int) (max * Math.pow(random.nextDouble(), 2));
+        final Set<Long> picked = new LinkedHashSet<>();
+        while (picked.size() < Math.min(count, categoryIds.size())) {
+            picked.add(categoryIds.get((int) (categoryIds.size() * Math.pow(random.nextDouble(), 3))));
+        }
+        return picked;
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    static class SeededCatalog {
+
+        final List<Long> categoryIds;
+        final long firstProductId;
+        final long lastProductId;
+
+        SeededCatalog(List<Long> categoryIds, long firstProductId, long lastProductId) {
+            this.categoryIds = categoryIds;
+            this.firstProductId = firstProductId;
+            this.lastProductId = lastProductId;
+        }
+    }
+}
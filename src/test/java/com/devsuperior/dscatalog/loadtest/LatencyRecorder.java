@@ -0,0 +1,87 @@
+package com.devsuperior.dscatalog.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps every latency sample per operation so percentiles are exact.
+ */
+class LatencyRecorder {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final Map<String, Samples> samples = new TreeMap<>();
+
+    synchronized void record(String operation, long nanos, boolean ok) {
+        samples.computeIfAbsent(operation, x -> new Samples()).add(nanos, ok);
+    }
+
+    synchronized void print(double seconds) {
+        System.out.printf(Locale.ROOT, "%-34s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            final Samples s = entry.getValue();
+            total += s.count;
+            final double[] p = s.percentiles();
+            System.out.printf(Locale.ROOT, "%-34s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), s.count, s.errors, s.count / seconds, p[0], p[1], p[2], p[3], s.max());
+        }
+        System.out.printf(Locale.ROOT, "%-34s %9d %7s %9.1f%n", "total", total, "", total / seconds);
+    }
+
+    synchronized void writeCsv(Path file, double seconds) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("operation,count,errors,ops_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+            for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+                final Samples s = entry.getValue();
+                final double[] p = s.percentiles();
+                out.printf(Locale.ROOT, "%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                        entry.getKey(), s.count, s.errors, s.count / seconds, p[0], p[1], p[2], p[3], s.max());
+            }
+        }
+    }
+
+    private static class Samples {
+
+        private long[] nanos = new long[1024];
+        private int count;
+        private int errors;
+
+        void add(long value, boolean ok) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        double[] percentiles() {
+            final long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            final double[] result = new double[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                final int index = (int) Math.ceil(PERCENTILES[i] / 100.0 * count) - 1;
+                result[i] = sorted[Math.max(0, index)] / 1e6;
+            }
+            return result;
+        }
+
+        double max() {
+            long max = 0;
+            for (int i = 0; i < count; i++) {
+                max = Math.max(max, nanos[i]);
+            }
+            return max / 1e6;
+        }
+    }
+}
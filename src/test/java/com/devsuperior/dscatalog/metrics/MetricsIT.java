@@ -0,0 +1,94 @@
+package com.devsuperior.dscatalog.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setup() {
+        // the context is shared with other ITs, so only meters that tests create on demand are removed
+        registry.getMeters().stream()
+                .filter(meter -> !meter.getId().getName().equals("dscatalog.sql.statements"))
+                .forEach(registry::remove);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    // outside a transaction the lookup goes through the batching loader, as in production
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findByIdShouldRecordServiceRepositoryAndQueryMetrics() throws Exception {
+
+        mockMvc.perform(get("/products/{id}", 1L).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        final Timer service = registry.find("dscatalog.service")
+                .tags("class", "ProductService", "method", "findById").timer();
+        final Timer repository = registry.find("dscatalog.repository")
+                .tags("class", "ProductRepository", "method", "findWithCategoriesByIdIn").timer();
+        final DistributionSummary queries = registry.find("dscatalog.http.queries")
+                .tags("method", "GET", "uri", "/products/{id}", "status", "200").summary();
+
+        Assertions.assertNotNull(service);
+        Assertions.assertEquals(1, service.count());
+        Assertions.assertNotNull(repository);
+        Assertions.assertEquals(1, repository.count());
+        Assertions.assertNotNull(queries);
+        Assertions.assertEquals(1, queries.count());
+        Assertions.assertEquals(1.0, queries.totalAmount());
+
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void findAllByIdShouldRecordQueryOfLoaderForRequest() throws Exception {
+
+        mockMvc.perform(get("/products?ids=3,1,2").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        final DistributionSummary queries = registry.find("dscatalog.http.queries")
+                .tags("method", "GET", "uri", "/products", "status", "200").summary();
+        Assertions.assertNotNull(queries);
+        Assertions.assertEquals(1.0, queries.totalAmount());
+
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void queryCounterShouldCountStatementsByType() throws Exception {
+
+        final double selectsBefore = registry.get("dscatalog.sql.statements").tag("type", "select").counter().count();
+
+        mockMvc.perform(get("/products?page=0&size=5").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        final double selects = registry.get("dscatalog.sql.statements").tag("type", "select").counter().count() - selectsBefore;
+        Assertions.assertEquals(2.0, selects);
+        Assertions.assertEquals(2.0, registry.get("dscatalog.http.queries").tag("uri", "/products").summary().totalAmount());
+    }
+}
@@ -0,0 +1,72 @@
+package com.devsuperior.dscatalog.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueryBudgetGuardTests {
+
+    private static final String PAGE = "select product0_.id from tb_product product0_ limit ?";
+    private static final String CATEGORIES = "select categories0_.product_id from tb_product_category categories0_ where categories0_.product_id=?";
+
+    private QueryCounter queryCounter;
+
+    @BeforeEach
+    void setup() {
+        queryCounter = new QueryCounter(new SimpleMeterRegistry());
+    }
+
+    @Test
+    void checkShouldThrowListingRepeatedStatementsWhenFailModeAndOverBudget() {
+
+        final QueryBudgetGuard guard = new QueryBudgetGuard(queryCounter, QueryBudgetGuard.Mode.FAIL);
+        final long start = guard.start();
+        queryCounter.inspect(PAGE);
+        for (int i = 0; i < 3; i++) {
+            queryCounter.inspect(CATEGORIES);
+        }
+
+        final QueryBudgetExceededException e = Assertions.assertThrows(QueryBudgetExceededException.class,
+                () -> guard.check("GET /products", 2, start));
+
+        Assertions.assertTrue(e.getMessage().startsWith("GET /products ran 4 SQL statements, budget is 2"));
+        Assertions.assertTrue(e.getMessage().contains("1x " + PAGE));
+        Assertions.assertTrue(e.getMessage().contains("3x " + CATEGORIES));
+    }
+
+    @Test
+    void checkShouldNotThrowWhenWithinBudget() {
+
+        final QueryBudgetGuard guard = new QueryBudgetGuard(queryCounter, QueryBudgetGuard.Mode.FAIL);
+        queryCounter.inspect(PAGE);
+        final long start = guard.start();
+        queryCounter.inspect(PAGE);
+        queryCounter.inspect(CATEGORIES);
+
+        Assertions.assertDoesNotThrow(() -> guard.check("GET /products", 2, start));
+    }
+
+    @Test
+    void checkShouldNotThrowWhenLogMode() {
+
+        final QueryBudgetGuard guard = new QueryBudgetGuard(queryCounter, QueryBudgetGuard.Mode.LOG);
+        final long start = guard.start();
+        queryCounter.inspect(PAGE);
+        queryCounter.inspect(PAGE);
+
+        Assertions.assertDoesNotThrow(() -> guard.check("GET /products", 1, start));
+    }
+
+    @Test
+    void statementsSinceShouldKeepOnlyMostRecentStatements() {
+
+        final long start = queryCounter.get();
+        for (int i = 0; i < QueryCounter.RECENT + 10; i++) {
+            queryCounter.inspect("select " + i);
+        }
+
+        Assertions.assertEquals(QueryCounter.RECENT, queryCounter.statementsSince(start).size());
+        Assertions.assertEquals("select 10", queryCounter.statementsSince(start).get(0));
+    }
+}
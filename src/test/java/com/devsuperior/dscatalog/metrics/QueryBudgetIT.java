@@ -0,0 +1,59 @@
+package com.devsuperior.dscatalog.metrics;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest(properties = "dscatalog.query-budget.mode=FAIL")
+class QueryBudgetIT {
+
+    @Autowired
+    private NaiveProductReader reader;
+
+    @Test
+    void budgetShouldFailNPlusOneMappingWithRepeatedStatement() {
+
+        final QueryBudgetExceededException e = Assertions.assertThrows(QueryBudgetExceededException.class,
+                () -> reader.findPageWithCategories(5));
+
+        Assertions.assertTrue(e.getMessage().contains("ran 6 SQL statements, budget is 2"), e.getMessage());
+        Assertions.assertTrue(e.getMessage().contains("5x select"), e.getMessage());
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        NaiveProductReader naiveProductReader(ProductRepository repository) {
+            return new NaiveProductReader(repository);
+        }
+    }
+
+    static class NaiveProductReader {
+
+        private final ProductRepository repository;
+
+        NaiveProductReader(ProductRepository repository) {
+            this.repository = repository;
+        }
+
+        // the shape the budget exists for: one query per product for its categories
+        @QueryBudget(2)
+        @Transactional(readOnly = true)
+        public List<ProductDTO> findPageWithCategories(int size) {
+            final List<Product> products = repository.findSlice(PageRequest.of(0, size)).getContent();
+            return products.stream().map(x -> new ProductDTO(x, x.getCategories())).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.devsuperior.dscatalog.resources;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class CategoryResourceIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    void tearDown() {
+        // entries loaded inside the rolled back test transaction must not leak
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void findByIdShouldReturnValidatorsAndNotModifiedWhenIfModifiedSinceIsCurrent() throws Exception {
+
+        final MvcResult result = mockMvc.perform(get("/categories/{id}", 1L).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn();
+
+        mockMvc.perform(get("/categories/{id}", 1L)
+                        .header("If-Modified-Since", result.getResponse().getHeader("Last-Modified"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void findAllShouldReturnNotModifiedWhenIfNoneMatchMatchesETag() throws Exception {
+
+        final String etag = mockMvc.perform(get("/categories").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/categories").header("If-None-Match", etag).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void updateShouldReturnPreconditionFailedWhenIfMatchDoesNotMatch() throws Exception {
+
+        mockMvc.perform(put("/categories/{id}", 1L).header("If-Match", "\"stale\"")
+                        .content("{\"name\":\"Books\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/categories/{id}", 1L).header("If-Match", "*")
+                        .content("{\"name\":\"Books\"}").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void moveShouldReturnCategoryUnderNewParentAndBreadcrumbsShouldFollow() throws Exception {
+
+        mockMvc.perform(put("/categories/{id}/parent", 3L).content("{\"parentId\":2}")
+                        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parentId").value(2L));
+
+        mockMvc.perform(get("/categories/{id}/breadcrumbs", 3L).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2L))
+                .andExpect(jsonPath("$[1].id").value(3L));
+        mockMvc.perform(get("/categories/{id}/subtree", 2L).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void moveShouldReturnBadRequestWhenParentIsTheCategoryItself() throws Exception {
+
+        mockMvc.perform(put("/categories/{id}/parent", 3L).content("{\"parentId\":3}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+}
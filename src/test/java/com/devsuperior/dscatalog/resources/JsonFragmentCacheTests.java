@@ -0,0 +1,124 @@
+package com.devsuperior.dscatalog.resources;
+
+import com.devsuperior.dscatalog.config.CacheConfig;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.tests.Factory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+class JsonFragmentCacheTests {
+
+    private ObjectMapper objectMapper;
+    private CaffeineCacheManager cacheManager;
+    private JsonFragmentCache fragments;
+    private ProductDTO productDTO;
+
+    @BeforeEach
+    void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cacheManager = new CaffeineCacheManager(CacheConfig.PRODUCT_JSON, CacheConfig.CATEGORY_JSON);
+        fragments = new JsonFragmentCache(cacheManager, objectMapper);
+        productDTO = Factory.createProductDTO();
+        productDTO.setVersion(1L);
+        productDTO.getCategories().get(0).setVersion(1L);
+    }
+
+    @Test
+    void productShouldWriteSameJsonAsObjectMapper() throws Exception {
+
+        final String json = objectMapper.writeValueAsString(List.of(fragments.product(productDTO)));
+
+        Assertions.assertEquals(objectMapper.writeValueAsString(List.of(productDTO)), json);
+    }
+
+    @Test
+    void productShouldWriteUtf8BytesOfObjectMapper() throws Exception {
+
+        productDTO.setName("Televisão");
+
+        final byte[] json = objectMapper.writeValueAsBytes(fragments.product(productDTO));
+
+        Assertions.assertArrayEquals(objectMapper.writeValueAsBytes(productDTO), json);
+    }
+
+    @Test
+    void productShouldReuseFragmentWhileVersionsAreUnchanged() {
+
+        final RawValue first = fragments.product(productDTO);
+        final RawValue second = fragments.product(copy(productDTO));
+
+        Assertions.assertSame(first, second);
+    }
+
+    @Test
+    void productShouldKeepFragmentsWithAndWithoutCategoriesApart() throws Exception {
+
+        final ProductDTO withoutCategories = copy(productDTO);
+        withoutCategories.getCategories().clear();
+
+        final RawValue full = fragments.product(productDTO);
+        final RawValue bare = fragments.product(withoutCategories);
+
+        Assertions.assertNotSame(full, bare);
+        Assertions.assertSame(full, fragments.product(productDTO));
+        Assertions.assertSame(bare, fragments.product(withoutCategories));
+        Assertions.assertEquals(objectMapper.writeValueAsString(withoutCategories), objectMapper.writeValueAsString(bare));
+    }
+
+    @Test
+    void productShouldWriteAgainWhenEmbeddedCategoryVersionChanged() throws Exception {
+
+        final RawValue first = fragments.product(productDTO);
+        final ProductDTO renamed = copy(productDTO);
+        renamed.getCategories().get(0).setName("Electronics");
+        renamed.getCategories().get(0).setVersion(2L);
+
+        final RawValue second = fragments.product(renamed);
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertTrue(objectMapper.writeValueAsString(second).contains("\"Electronics\""));
+    }
+
+    @Test
+    void productShouldWriteAgainAfterEviction() {
+
+        final RawValue first = fragments.product(productDTO);
+        cacheManager.getCache(CacheConfig.PRODUCT_JSON).evict(productDTO.getId());
+
+        Assertions.assertNotSame(first, fragments.product(productDTO));
+    }
+
+    @Test
+    void categoryShouldWriteAgainWhenVersionChanged() throws Exception {
+
+        final CategoryDTO category = new CategoryDTO(1L, "Eletronics");
+        category.setVersion(1L);
+        final RawValue first = fragments.category(category);
+        Assertions.assertSame(first, fragments.category(category));
+
+        category.setName("Electronics");
+        category.setVersion(2L);
+        final RawValue second = fragments.category(category);
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(objectMapper.writeValueAsString(category), objectMapper.writeValueAsString(second));
+    }
+
+    // a DTO as read by another request: equal content, row versions included
+    private ProductDTO copy(ProductDTO dto) {
+        final ProductDTO copy = objectMapper.convertValue(dto, ProductDTO.class);
+        copy.setVersion(dto.getVersion());
+        for (int i = 0; i < dto.getCategories().size(); i++) {
+            copy.getCategories().get(i).setVersion(dto.getCategories().get(i).getVersion());
+        }
+        return copy;
+    }
+}
@@ -3,19 +3,33 @@ package com.devsuperior.dscatalog.resources;
 import com.devsuperior.dscatalog.dto.ProductDTO;
 import com.devsuperior.dscatalog.tests.Factory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Transactional
@@ -29,6 +43,12 @@ class ProductResourceIT {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     private Long existingId;
     private Long nonExistingId;
     private Long countTotalProducts;
@@ -46,6 +66,12 @@ class ProductResourceIT {
         jsonBody = objectMapper.writeValueAsString(productDTO);
     }
 
+    @AfterEach
+    void tearDown() {
+        // entries loaded inside the rolled back test transaction must not leak
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
     @Test
     void findAllShouldReturnSortedPageWhenSortByName() throws Exception {
 
@@ -61,6 +87,125 @@ class ProductResourceIT {
         resultActions.andExpect(jsonPath("$.content[2].name").value("PC Gamer Alfa"));
     }
 
+    @Test
+    void findAllShouldReturnFilteredPageWhenFilterParamsArePresent() throws Exception {
+
+        final ResultActions resultActions = mockMvc
+                .perform(get("/products?categoryId=3&minPrice=2000&maxPrice=2300&sort=price,asc")
+                        .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isOk());
+        resultActions.andExpect(jsonPath("$.totalElements").value(4));
+        resultActions.andExpect(jsonPath("$.content[0].name").value("Smart TV"));
+        // equal prices are ordered by id
+        resultActions.andExpect(jsonPath("$.content[2].name").value("PC Gamer Hera"));
+        resultActions.andExpect(jsonPath("$.content[3].name").value("PC Gamer Min"));
+    }
+
+    @Test
+    void findAllShouldReturnSliceWithoutTotalWhenCountIsNone() throws Exception {
+
+        final ResultActions resultActions = mockMvc
+                .perform(get("/products?page=0&size=12&sort=name,asc&count=NONE")
+                        .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isOk());
+        resultActions.andExpect(jsonPath("$.totalElements").doesNotExist());
+        resultActions.andExpect(jsonPath("$.content[0].name").value("Macbook Pro"));
+        resultActions.andExpect(jsonPath("$.last").value(false));
+    }
+
+    @Test
+    void findAllShouldReturnOnlyRequestedFieldsWhenFieldsGiven() throws Exception {
+
+        final ResultActions resultActions = mockMvc
+                .perform(get("/products?page=0&size=12&sort=name,asc&fields=name,categories")
+                        .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isOk());
+        resultActions.andExpect(jsonPath("$.content[0].id").exists());
+        resultActions.andExpect(jsonPath("$.content[0].name").value("Macbook Pro"));
+        resultActions.andExpect(jsonPath("$.content[0].categories").isNotEmpty());
+        resultActions.andExpect(jsonPath("$.content[0].description").doesNotExist());
+        resultActions.andExpect(jsonPath("$.content[0].price").doesNotExist());
+    }
+
+    @Test
+    void findAllByCursorShouldReturnFirstPageAndNextCursorWhenAfterIsEmpty() throws Exception {
+
+        final ResultActions resultActions = mockMvc
+                .perform(get("/products?after=&size=12&sort=name")
+                        .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isOk());
+        resultActions.andExpect(jsonPath("$.totalElements").doesNotExist());
+        resultActions.andExpect(jsonPath("$.content[0].name").value("Macbook Pro"));
+        resultActions.andExpect(jsonPath("$.next").isNotEmpty());
+        resultActions.andExpect(jsonPath("$.last").value(false));
+    }
+
+    @Test
+    void findAllByCursorShouldReturnBadRequestWhenCursorIsInvalid() throws Exception {
+
+        final ResultActions resultActions = mockMvc
+                .perform(get("/products?after=not-a-cursor")
+                        .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchShouldFindProductsIndexedAtStartup() throws Exception {
+
+        final ResultActions resultActions = mockMvc
+                .perform(get("/products/search?q=macbook")
+                        .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isOk());
+        resultActions.andExpect(jsonPath("$.totalElements").value(1));
+        resultActions.andExpect(jsonPath("$.content[0].name").value("Macbook Pro"));
+    }
+
+    @Test
+    void exportShouldStreamEveryProductAsNdjson() throws Exception {
+
+        final MvcResult mvcResult = mockMvc
+                .perform(get("/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+
+        final String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+        Assertions.assertEquals(countTotalProducts, lines.length);
+        final ProductDTO first = objectMapper.readValue(lines[0], ProductDTO.class);
+        Assertions.assertEquals(existingId, first.getId());
+        Assertions.assertFalse(first.getCategories().isEmpty());
+    }
+
+    @Test
+    void saveAllShouldReturnResultPerItem() throws Exception {
+
+        productDTO.setId(null);
+        final ProductDTO unknown = Factory.createProductDTO();
+        unknown.setId(nonExistingId);
+        final String batchBody = objectMapper.writeValueAsString(List.of(productDTO, unknown));
+
+        final ResultActions resultActions = mockMvc
+                .perform(post("/products/batch")
+                        .content(batchBody)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isOk());
+        resultActions.andExpect(jsonPath("$[0].status").value("CREATED"));
+        resultActions.andExpect(jsonPath("$[0].id").exists());
+        resultActions.andExpect(jsonPath("$[1].status").value("FAILED"));
+        resultActions.andExpect(jsonPath("$[1].index").value(1));
+    }
+
     @Test
     void updateShouldReturnProductDTOWhenIdExists() throws Exception {
 
@@ -90,4 +235,119 @@ class ProductResourceIT {
 
         resultActions.andExpect(status().isNotFound());
     }
+
+    @Test
+    void findAllByIdShouldReturnExistingProductsInOrderAskedFor() throws Exception {
+
+        mockMvc.perform(get("/products?ids=3,{id},1", nonExistingId).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(3L))
+                .andExpect(jsonPath("$[1].id").value(1L))
+                .andExpect(jsonPath("$[1].categories").isNotEmpty());
+    }
+
+    @Test
+    void findByIdShouldReturnNotModifiedWhenIfNoneMatchMatchesETag() throws Exception {
+
+        final String etag = mockMvc.perform(get("/products/{id}", existingId).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/products/{id}", existingId).header("If-None-Match", etag).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void findByIdShouldReturnNewETagAfterUpdate() throws Exception {
+
+        final String etag = mockMvc.perform(get("/products/{id}", existingId).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/products/{id}", existingId).content(jsonBody).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        // what the commit would do, so the version is bumped outside the budgeted GET
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(get("/products/{id}", existingId).header("If-None-Match", etag).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void findByIdShouldServeRenamedCategoryAfterCategoryUpdate() throws Exception {
+
+        mockMvc.perform(get("/products/{id}", existingId).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categories[0].id").value(2L));
+
+        mockMvc.perform(put("/categories/{id}", 2L).content("{\"name\":\"Eletrodomesticos\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(get("/products/{id}", existingId).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categories[0].name").value("Eletrodomesticos"));
+        mockMvc.perform(get("/products?page=0&size=25&sort=id&withCategories=true").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].categories[0].name").value("Eletrodomesticos"));
+    }
+
+    @Test
+    void findAllShouldReturnNotModifiedWhenIfNoneMatchMatchesETag() throws Exception {
+
+        final String etag = mockMvc.perform(get("/products?page=0&size=5&withCategories=true").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/products?page=0&size=5&withCategories=true").header("If-None-Match", etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/products?page=1&size=5&withCategories=true").header("If-None-Match", etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updateShouldApplyChangeWhenIfMatchMatchesCurrentETag() throws Exception {
+
+        final String etag = mockMvc.perform(get("/products/{id}", existingId).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/products/{id}", existingId).header("If-Match", etag)
+                        .content(jsonBody).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value(productDTO.getName()));
+    }
+
+    @Test
+    void updateShouldReturnPreconditionFailedWhenIfMatchIsStale() throws Exception {
+
+        final String etag = mockMvc.perform(get("/products/{id}", existingId).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/products/{id}", existingId).content(jsonBody).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/products/{id}", existingId).header("If-Match", etag)
+                        .content(jsonBody).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void patchShouldChangeOnlySuppliedFields() throws Exception {
+
+        mockMvc.perform(patch("/products/{id}", existingId).content("{\"price\":42.0}")
+                        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(42.0))
+                .andExpect(jsonPath("$.name").value("The Lord of the Rings"));
+    }
 }
@@ -1,6 +1,15 @@
 package com.devsuperior.dscatalog.resources;
 
+import com.devsuperior.dscatalog.config.CacheConfig;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.services.CountMode;
+import com.devsuperior.dscatalog.services.ProductBatchService;
+import com.devsuperior.dscatalog.services.ProductExportService;
+import com.devsuperior.dscatalog.services.ProductFacetService;
+import com.devsuperior.dscatalog.services.ProductFields;
+import com.devsuperior.dscatalog.services.ProductImportService;
+import com.devsuperior.dscatalog.services.ProductPriceService;
+import com.devsuperior.dscatalog.services.ProductSearchService;
 import com.devsuperior.dscatalog.services.ProductService;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 import com.devsuperior.dscatalog.tests.Factory;
@@ -10,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -18,6 +28,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -25,12 +36,25 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ProductResource.class)
+@Import({ CacheConfig.class, JsonFragmentCache.class })
 class ProductResourceTests {
 
     @Autowired
     private MockMvc mockMvc;
     @MockBean
     private ProductService service;
+    @MockBean
+    private ProductBatchService batchService;
+    @MockBean
+    private ProductExportService exportService;
+    @MockBean
+    private ProductImportService importService;
+    @MockBean
+    private ProductSearchService searchService;
+    @MockBean
+    private ProductPriceService priceService;
+    @MockBean
+    private ProductFacetService facetService;
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -51,15 +75,16 @@ class ProductResourceTests {
         page = new PageImpl<>(List.of(productDTO));
         jsonBody = objectMapper.writeValueAsString(productDTO);
 
-        when(service.findAllPaged(any())).thenReturn(page);
+        when(service.findAllPaged(any(), any(), any(), any(ProductFields.class))).thenReturn(page);
 
         when(service.findById(existingId)).thenReturn(productDTO);
+        when(service.findAllById(any())).thenReturn(List.of(productDTO));
         when(service.findById(nonExistingId)).thenThrow(ResourceNotFoundException.class);
 
         when(service.insert(any())).thenReturn(productDTO);
 
-        when(service.update(eq(existingId), any())).thenReturn(productDTO);
-        when(service.update(eq(nonExistingId), any())).thenThrow(ResourceNotFoundException.class);
+        when(service.update(eq(existingId), any(), any())).thenReturn(productDTO);
+        when(service.update(eq(nonExistingId), any(), any())).thenThrow(ResourceNotFoundException.class);
 
         doNothing().when(service).delete(existingId);
         doThrow(ResourceNotFoundException.class).when(service).delete(nonExistingId);
@@ -70,6 +95,26 @@ class ProductResourceTests {
         mockMvc.perform(get("/products").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
     }
 
+    @Test
+    void findAllShouldPassCountModeToService() throws Exception {
+
+        mockMvc.perform(get("/products?count=NONE").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        verify(service).findAllPaged(any(), any(), eq(CountMode.NONE), eq(ProductFields.WITHOUT_CATEGORIES));
+    }
+
+    @Test
+    void findAllShouldPassFilterToService() throws Exception {
+
+        mockMvc.perform(get("/products?categoryId=3&minPrice=100&maxPrice=2000&name=PC")
+                .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        verify(service).findAllPaged(argThat(filter -> filter.getCategoryId() == 3L
+                && filter.getMinPrice() == 100.0
+                && filter.getMaxPrice() == 2000.0
+                && filter.getName().equals("PC")), any(), eq(CountMode.EXACT), eq(ProductFields.WITHOUT_CATEGORIES));
+    }
+
     @Test
     void findByIdShouldReturnProductDTOWhenIdExists() throws Exception {
 
@@ -89,6 +134,43 @@ class ProductResourceTests {
         resultActions.andExpect(status().isNotFound());
     }
 
+    @Test
+    void findByIdShouldReturnOnlyRequestedFieldsWhenFieldsGiven() throws Exception {
+
+        when(service.findById(eq(existingId), any(ProductFields.class))).thenReturn(productDTO);
+
+        final ResultActions resultActions = mockMvc.perform(get("/products/{id}?fields=name,price", existingId)
+                .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isOk());
+        resultActions.andExpect(jsonPath("$.id").exists());
+        resultActions.andExpect(jsonPath("$.name").exists());
+        resultActions.andExpect(jsonPath("$.price").exists());
+        resultActions.andExpect(jsonPath("$.description").doesNotExist());
+        resultActions.andExpect(jsonPath("$.categories").doesNotExist());
+        verify(service).findById(existingId, ProductFields.parse("name,price", false));
+    }
+
+    @Test
+    void findAllShouldReturnBadRequestWhenFieldIsUnknown() throws Exception {
+
+        final ResultActions resultActions = mockMvc.perform(get("/products?fields=name,secret")
+                .accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isBadRequest());
+        verify(service, never()).findAllPaged(any(), any(), any(), any(ProductFields.class));
+    }
+
+    @Test
+    void findAllByIdShouldPassIdsInOrderToService() throws Exception {
+
+        final ResultActions resultActions = mockMvc.perform(get("/products?ids=3,1,2").accept(MediaType.APPLICATION_JSON));
+
+        resultActions.andExpect(status().isOk());
+        resultActions.andExpect(jsonPath("$[0].id").exists());
+        verify(service).findAllById(List.of(3L, 1L, 2L));
+    }
+
     @Test
     void insertShouldReturnProductDTOCreated() throws Exception {
 
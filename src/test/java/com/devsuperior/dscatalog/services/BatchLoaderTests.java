@@ -0,0 +1,160 @@
+package com.devsuperior.dscatalog.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.devsuperior.dscatalog.metrics.QueryCounter;
+import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class BatchLoaderTests {
+
+    private final ConcurrentLinkedQueue<Set<Long>> batches = new ConcurrentLinkedQueue<>();
+
+    private final Function<Set<Long>, Map<Long, String>> evenIdsExist = ids -> {
+        batches.add(Set.copyOf(ids));
+        return ids.stream().filter(id -> id % 2 == 0).collect(Collectors.toMap(id -> id, id -> "product " + id));
+    };
+
+    private BatchLoader<Long, String> loader;
+
+    @AfterEach
+    void tearDown() {
+        loader.close();
+    }
+
+    @Test
+    void loadShouldResolveConcurrentCallersWithOneBatchWhenCapIsReached() throws Exception {
+
+        loader = new BatchLoader<>("test", 8, Duration.ofMinutes(1), 1, evenIdsExist);
+
+        final List<Future<String>> results = runConcurrently(8, i -> loader.load((long) i));
+
+        for (int i = 0; i < 8; i++) {
+            Assertions.assertEquals(i % 2 == 0 ? "product " + i : null, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(List.of(Set.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L)), new ArrayList<>(batches));
+    }
+
+    @Test
+    void loadShouldDispatchPartialBatchWhenWindowPassed() {
+
+        loader = new BatchLoader<>("test", 100, Duration.ofMillis(5), 1, evenIdsExist);
+
+        Assertions.assertEquals("product 2", loader.load(2L));
+        Assertions.assertEquals(1, batches.size());
+    }
+
+    @Test
+    void loadAllShouldAskForDuplicateKeysOnceAndKeepOrderOfFoundKeys() {
+
+        loader = new BatchLoader<>("test", 100, Duration.ofMillis(5), 1, evenIdsExist);
+
+        final Map<Long, String> result = loader.loadAll(List.of(6L, 3L, 2L, 6L));
+
+        Assertions.assertEquals(List.of(6L, 2L), new ArrayList<>(result.keySet()));
+        Assertions.assertEquals(List.of(Set.of(6L, 3L, 2L)), new ArrayList<>(batches));
+    }
+
+    @Test
+    void loadAllShouldSpillKeysBeyondCapIntoFollowingBatches() {
+
+        loader = new BatchLoader<>("test", 2, Duration.ofMillis(5), 1, evenIdsExist);
+
+        final Map<Long, String> result = loader.loadAll(List.of(2L, 4L, 6L));
+
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertEquals(List.of(Set.of(2L, 4L), Set.of(6L)), new ArrayList<>(batches));
+    }
+
+    @Test
+    void loadShouldRethrowFailureOfBatchToEveryCaller() throws Exception {
+
+        loader = new BatchLoader<>("test", 4, Duration.ofMinutes(1), 1, ids -> {
+            throw new DatabaseException("Connection refused");
+        });
+
+        final List<Future<String>> results = runConcurrently(4, i -> loader.load((long) i));
+
+        for (Future<String> result : results) {
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(e.getCause() instanceof DatabaseException);
+        }
+    }
+
+    @Test
+    void loadShouldCountStatementsOfBatchOnEveryCallerThread() throws Exception {
+
+        final QueryCounter queryCounter = new QueryCounter(new SimpleMeterRegistry());
+        loader = new BatchLoader<>("test", 4, Duration.ofMinutes(1), 1, queryCounter, ids -> {
+            queryCounter.inspect("select * from tb_product where id in (?, ?, ?, ?)");
+            return evenIdsExist.apply(ids);
+        });
+
+        final List<Future<String>> results = runConcurrently(4, i -> {
+            final long before = queryCounter.get();
+            loader.load((long) i);
+            return String.valueOf(queryCounter.get() - before);
+        });
+
+        for (Future<String> result : results) {
+            Assertions.assertEquals("1", result.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closeShouldFailCallersStillWaiting() throws Exception {
+
+        loader = new BatchLoader<>("test", 100, Duration.ofMinutes(1), 1, evenIdsExist);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> result = executor.submit(() -> loader.load(2L));
+            while (!loader.isPending(2L)) {
+                Thread.sleep(1);
+            }
+
+            loader.close();
+
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+            Assertions.assertThrows(IllegalStateException.class, () -> loader.load(4L));
+            Assertions.assertTrue(batches.isEmpty());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Future<String>> runConcurrently(int callers, Function<Integer, String> call) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                final int caller = i;
+                results.add(executor.submit(() -> call.apply(caller)));
+            }
+            return results;
+        }
+        finally {
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.metrics.QueryCounter;
+import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * The window is long enough that batches are only dispatched when full,
+ * so the number of queries does not depend on thread scheduling.
+ */
+@SpringBootTest(properties = { "dscatalog.loader.window=1m", "dscatalog.loader.max-batch-size=16" })
+class BatchLoadingIT {
+
+    private static final int CALLERS = 16;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        clearCaches();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearCaches();
+    }
+
+    @Test
+    void findByIdShouldResolveConcurrentCallersOfDifferentProductsWithOneQuery() throws Exception {
+
+        final List<Future<ProductDTO>> results = runConcurrently(id -> productService.findById(id));
+
+        for (int i = 0; i < CALLERS; i++) {
+            final ProductDTO dto = results.get(i).get(10, TimeUnit.SECONDS);
+            Assertions.assertEquals(i + 1L, dto.getId());
+            Assertions.assertFalse(dto.getCategories().isEmpty());
+        }
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdShouldCountSharedQueryTowardsEveryCaller() throws Exception {
+
+        final List<Future<Long>> results = runConcurrently(id -> {
+            final long before = queryCounter.get();
+            productService.findById(id);
+            return queryCounter.get() - before;
+        });
+
+        for (Future<Long> result : results) {
+            Assertions.assertEquals(1L, result.get(10, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdShouldResolveConcurrentCallersOfDifferentCategoriesWithOneQuery() throws Exception {
+
+        final List<Future<CategoryDTO>> results = runConcurrently(id -> categoryService.findById(id));
+
+        Assertions.assertEquals("Livros", results.get(0).get(10, TimeUnit.SECONDS).getName());
+        Assertions.assertEquals(3L, results.get(2).get(10, TimeUnit.SECONDS).getId());
+        for (int i = 3; i < CALLERS; i++) {
+            final Future<CategoryDTO> result = results.get(i);
+            final ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                    () -> result.get(10, TimeUnit.SECONDS));
+            Assertions.assertTrue(e.getCause() instanceof ResourceNotFoundException);
+        }
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllByIdShouldReturnFoundProductsInOrderAskedForWithOneQueryPerBatch() {
+
+        final List<Long> ids = LongStream.rangeClosed(1, 2 * CALLERS).map(id -> 2 * CALLERS + 1 - id)
+                .boxed().collect(Collectors.toList());
+
+        final long before = queryCounter.get();
+        final List<ProductDTO> result = productService.findAllById(ids);
+
+        Assertions.assertEquals(2, queryCounter.get() - before);
+        Assertions.assertEquals(25, result.size());
+        Assertions.assertEquals(25L, result.get(0).getId());
+        Assertions.assertEquals(1L, result.get(24).getId());
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private <T> List<Future<T>> runConcurrently(LongFunction<T> call) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<T>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                final long id = i + 1L;
+                results.add(executor.submit(() -> call.apply(id)));
+            }
+            return results;
+        }
+        finally {
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(20, TimeUnit.SECONDS));
+        }
+    }
+
+    private void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+}
@@ -0,0 +1,159 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import com.devsuperior.dscatalog.tests.Factory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Transactional
+@SpringBootTest
+class CategoryServiceIT {
+
+    @Autowired
+    private CategoryService service;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Long booksId;
+    private Long electronicsId;
+    private Long fantasyId;
+    private Long epicId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        booksId = 1L;
+        electronicsId = 2L;
+        fantasyId = service.insert(child("Fantasy", booksId)).getId();
+        epicId = service.insert(child("Epic", fantasyId)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void findSubtreeShouldReturnCategoryAndDescendantsWithOneSubtreeQuery() {
+
+        final List<CategoryDTO> result = service.findSubtree(booksId);
+
+        Assertions.assertEquals(List.of(booksId, fantasyId, epicId), ids(result));
+        Assertions.assertEquals(fantasyId, result.get(2).getParentId());
+        // the root by id, then one range scan on path
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findSubtreeShouldReturnDescendantsOfCategoryBeforeItsNextSibling() {
+
+        final Long poetryId = service.insert(child("Poetry", booksId)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        final List<CategoryDTO> result = service.findSubtree(booksId);
+
+        // siblings come in the string order of their ids, each followed by its own descendants
+        final boolean poetryFirst = String.valueOf(poetryId).compareTo(String.valueOf(fantasyId)) < 0;
+        Assertions.assertEquals(poetryFirst ? List.of(booksId, poetryId, fantasyId, epicId)
+                : List.of(booksId, fantasyId, epicId, poetryId), ids(result));
+    }
+
+    @Test
+    void findBreadcrumbsShouldReturnPathFromRoot() {
+
+        final List<CategoryDTO> result = service.findBreadcrumbs(epicId);
+
+        Assertions.assertEquals(List.of(booksId, fantasyId, epicId), ids(result));
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void moveShouldRewritePathsOfWholeSubtree() {
+
+        service.move(fantasyId, electronicsId);
+        entityManager.clear();
+
+        Assertions.assertEquals(List.of(electronicsId, fantasyId, epicId), ids(service.findBreadcrumbs(epicId)));
+        Assertions.assertEquals(List.of(booksId), ids(service.findSubtree(booksId)));
+
+        service.move(fantasyId, null);
+        entityManager.clear();
+
+        Assertions.assertEquals(List.of(fantasyId, epicId), ids(service.findBreadcrumbs(epicId)));
+        Assertions.assertNull(service.findById(fantasyId).getParentId());
+    }
+
+    @Test
+    void moveShouldThrowBadRequestExceptionWhenTargetIsInsideSubtree() {
+
+        Assertions.assertThrows(BadRequestException.class, () -> service.move(booksId, epicId));
+        Assertions.assertThrows(BadRequestException.class, () -> service.move(booksId, booksId));
+    }
+
+    @Test
+    void productFilterShouldIncludeProductsOfDescendantCategoriesWhenRequested() {
+
+        final ProductDTO dto = Factory.createProductDTO();
+        dto.getCategories().clear();
+        dto.getCategories().add(new CategoryDTO(epicId, null));
+        final Long productId = productService.insert(dto).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        final ProductFilterDTO filter = new ProductFilterDTO(booksId, null, null, null);
+        final PageRequest pageRequest = PageRequest.of(0, 50);
+
+        Assertions.assertFalse(productIds(productService.findAllPaged(filter, pageRequest, CountMode.EXACT, ProductFields.WITHOUT_CATEGORIES).getContent())
+                .contains(productId));
+
+        filter.setIncludeDescendants(true);
+        final List<Long> result = productIds(productService.findAllPaged(filter, pageRequest, CountMode.EXACT, ProductFields.WITHOUT_CATEGORIES).getContent());
+
+        Assertions.assertTrue(result.contains(productId));
+        Assertions.assertTrue(result.contains(2L));
+    }
+
+    private static CategoryDTO child(String name, Long parentId) {
+        final CategoryDTO dto = new CategoryDTO(null, name);
+        dto.setParentId(parentId);
+        return dto;
+    }
+
+    private static List<Long> ids(List<CategoryDTO> categories) {
+        return categories.stream().map(CategoryDTO::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> productIds(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,196 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CategoryStatsDTO;
+import com.devsuperior.dscatalog.dto.PriceAdjustmentDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductPatchDTO;
+import com.devsuperior.dscatalog.tests.Factory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Transactional
+@SpringBootTest
+class CategoryStatsServiceIT {
+
+    @Autowired
+    private CategoryStatsService service;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductBatchService batchService;
+
+    @Autowired
+    private ProductPriceService priceService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void findAllShouldReadStatsWithOneStatement() {
+
+        statistics.clear();
+        final List<CategoryStatsDTO> result = service.findAll(null);
+
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(List.of(1L, 2L, 3L), result.stream().map(CategoryStatsDTO::getCategoryId)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(snapshotFromScratch(), snapshot());
+    }
+
+    @Test
+    void insertShouldIncrementCountAndWidenRange() {
+
+        final ProductDTO dto = productIn(9999.0, 1L, 2L);
+        productService.insert(dto);
+
+        final CategoryStatsDTO books = stats(1L);
+        Assertions.assertEquals(9999.0, books.getMaxPrice());
+        Assertions.assertEquals(snapshotFromScratch(), snapshot());
+    }
+
+    @Test
+    void updateShouldMoveCountsAndRecomputeLostExtremes() {
+
+        final ProductDTO dto = productService.findById(2L);
+        final long before = stats(3L).getProductCount();
+        dto.setPrice(0.5);
+        dto.getCategories().clear();
+        dto.getCategories().add(new CategoryDTO(2L, null));
+
+        productService.update(2L, dto);
+
+        Assertions.assertEquals(before - 1, stats(3L).getProductCount());
+        Assertions.assertEquals(0.5, stats(2L).getMinPrice());
+        Assertions.assertEquals(snapshotFromScratch(), snapshot());
+    }
+
+    @Test
+    void patchShouldRecomputeCategoryWhenItsMaximumDrops() {
+
+        final CategoryStatsDTO computers = stats(3L);
+        final Long priciest = productWithPrice(computers.getMaxPrice());
+        final ProductPatchDTO dto = new ProductPatchDTO();
+        dto.setPrice(1.0);
+
+        productService.patch(priciest, dto, null);
+
+        Assertions.assertTrue(stats(3L).getMaxPrice() < computers.getMaxPrice());
+        Assertions.assertEquals(snapshotFromScratch(), snapshot());
+    }
+
+    @Test
+    void deleteShouldDecrementCounts() {
+
+        final long before = stats(1L).getProductCount();
+
+        productService.delete(2L);
+
+        Assertions.assertEquals(before - 1, stats(1L).getProductCount());
+        Assertions.assertEquals(snapshotFromScratch(), snapshot());
+    }
+
+    @Test
+    void bulkWritesShouldRecomputeTouchedCategories() {
+
+        final ProductDTO moved = productService.findById(1L);
+        moved.getCategories().clear();
+        moved.getCategories().add(new CategoryDTO(3L, null));
+        batchService.saveAll(List.of(productIn(5.0, 1L), moved));
+        entityManager.clear();
+        Assertions.assertEquals(snapshotFromScratch(), snapshot());
+
+        final PriceAdjustmentDTO adjustment = new PriceAdjustmentDTO();
+        adjustment.setCategoryId(3L);
+        adjustment.setPercent(50.0);
+        priceService.adjust(adjustment);
+        entityManager.clear();
+        Assertions.assertEquals(snapshotFromScratch(), snapshot());
+    }
+
+    @Test
+    void categoryInsertAndDeleteShouldMaintainRows() {
+
+        final Long id = categoryService.insert(new CategoryDTO(null, "Empty")).getId();
+        entityManager.flush();
+
+        final CategoryStatsDTO created = stats(id);
+        Assertions.assertEquals(0L, created.getProductCount());
+        Assertions.assertNull(created.getMinPrice());
+
+        categoryService.delete(id);
+        entityManager.flush();
+
+        Assertions.assertTrue(service.findAll(null).stream().noneMatch(x -> x.getCategoryId().equals(id)));
+    }
+
+    private CategoryStatsDTO stats(Long categoryId) {
+        entityManager.flush();
+        return service.findAll(null).stream().filter(x -> x.getCategoryId().equals(categoryId)).findFirst()
+                .orElseThrow();
+    }
+
+    private List<String> snapshot() {
+        entityManager.flush();
+        return service.findAll(null).stream()
+                .map(x -> x.getCategoryId() + ":" + x.getProductCount() + ":" + x.getMinPrice() + ":" + x.getMaxPrice())
+                .collect(Collectors.toList());
+    }
+
+    private List<String> snapshotFromScratch() {
+        final List<String> incremental = snapshot();
+        service.recomputeAll();
+        final List<String> scratch = snapshot();
+        Assertions.assertEquals(scratch, incremental);
+        return scratch;
+    }
+
+    private Long productWithPrice(Double price) {
+        return entityManager.createQuery("SELECT p.id FROM Product p WHERE p.price = :price", Long.class)
+                .setParameter("price", price).setMaxResults(1).getSingleResult();
+    }
+
+    private static ProductDTO productIn(double price, Long... categoryIds) {
+        final ProductDTO dto = Factory.createProductDTO();
+        dto.setId(null);
+        dto.setPrice(price);
+        dto.getCategories().clear();
+        for (Long categoryId : categoryIds) {
+            dto.getCategories().add(new CategoryDTO(categoryId, null));
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,64 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.tests.Factory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the throughput of POST /products/batch with one insert per product.
+ * Run with: mvn test -Dtest=ProductBatchBenchmarkIT -Dbenchmark=true
+ */
+@SpringBootTest
+@DirtiesContext
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductBatchBenchmarkIT {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int BATCH_SIZE = 2_000;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ProductBatchService batchService;
+
+    @Test
+    void saveAllShouldOutperformSingleInserts() {
+
+        final long singleStart = System.nanoTime();
+        for (int i = 0; i < PRODUCTS; i++) {
+            service.insert(newProduct(i));
+        }
+        final double singleSeconds = (System.nanoTime() - singleStart) / 1e9;
+
+        final long batchStart = System.nanoTime();
+        for (int i = 0; i < PRODUCTS; i += BATCH_SIZE) {
+            final List<ProductDTO> dtos = new ArrayList<>(BATCH_SIZE);
+            for (int j = i; j < i + BATCH_SIZE; j++) {
+                dtos.add(newProduct(j));
+            }
+            batchService.saveAll(dtos);
+        }
+        final double batchSeconds = (System.nanoTime() - batchStart) / 1e9;
+
+        System.out.printf("single inserts: %.0f products/s%n", PRODUCTS / singleSeconds);
+        System.out.printf("batch inserts:  %.0f products/s%n", PRODUCTS / batchSeconds);
+
+        Assertions.assertTrue(batchSeconds < singleSeconds);
+    }
+
+    private ProductDTO newProduct(int i) {
+        final ProductDTO dto = Factory.createProductDTO();
+        dto.setId(null);
+        dto.setName("Product " + i);
+        return dto;
+    }
+}
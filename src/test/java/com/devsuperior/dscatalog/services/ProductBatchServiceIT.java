@@ -0,0 +1,98 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO;
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.tests.Factory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+@Transactional
+@SpringBootTest
+class ProductBatchServiceIT {
+
+    @Autowired
+    private ProductBatchService service;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long existingId;
+    private Long nonExistingId;
+    private Long nonExistingCategoryId;
+    private Long countTotalProducts;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() throws Exception {
+
+        existingId = 1L;
+        nonExistingId = 1000L;
+        nonExistingCategoryId = 1000L;
+        countTotalProducts = 25L;
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void saveAllShouldReportResultPerItem() {
+
+        final ProductDTO created = newProduct();
+        final ProductDTO updated = Factory.createProductDTO();
+        updated.setId(existingId);
+        updated.setName("Updated");
+        final ProductDTO unknownProduct = Factory.createProductDTO();
+        unknownProduct.setId(nonExistingId);
+        final ProductDTO unknownCategory = newProduct();
+        unknownCategory.getCategories().add(new CategoryDTO(nonExistingCategoryId, "None"));
+
+        final List<BatchItemResultDTO> result = service.saveAll(List.of(created, updated, unknownProduct, unknownCategory));
+
+        Assertions.assertEquals(BatchItemResultDTO.Status.CREATED, result.get(0).getStatus());
+        Assertions.assertNotNull(result.get(0).getId());
+        Assertions.assertEquals(BatchItemResultDTO.Status.UPDATED, result.get(1).getStatus());
+        Assertions.assertEquals(BatchItemResultDTO.Status.FAILED, result.get(2).getStatus());
+        Assertions.assertEquals(BatchItemResultDTO.Status.FAILED, result.get(3).getStatus());
+        Assertions.assertEquals(3, result.get(3).getIndex());
+        Assertions.assertEquals(countTotalProducts + 1, repository.count());
+        Assertions.assertEquals("Updated", repository.findById(existingId).get().getName());
+    }
+
+    @Test
+    void saveAllShouldSendInsertsInJdbcBatches() {
+
+        final List<ProductDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            dtos.add(newProduct());
+        }
+
+        service.saveAll(dtos);
+
+        Assertions.assertEquals(countTotalProducts + 200, repository.count());
+        // 800 rows (products, join rows, listing rows and their category links) go out in
+        // batches of 50 instead of one statement each, plus a listing and a categories lookup per chunk
+        Assertions.assertTrue(statistics.getPrepareStatementCount() <= 35);
+    }
+
+    private ProductDTO newProduct() {
+        final ProductDTO dto = Factory.createProductDTO();
+        dto.setId(null);
+        return dto;
+    }
+}
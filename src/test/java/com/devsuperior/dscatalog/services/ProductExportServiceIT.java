@@ -0,0 +1,55 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+@Transactional
+@SpringBootTest
+class ProductExportServiceIT {
+
+    @Autowired
+    private ProductExportService service;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Long countTotalProducts;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() throws Exception {
+
+        countTotalProducts = 25L;
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void exportAllShouldEmitEveryProductWithCategoriesAndDetachEntities() {
+
+        final List<ProductDTO> result = new ArrayList<>();
+
+        service.exportAll(result::add);
+
+        Assertions.assertEquals(countTotalProducts, result.size());
+        result.forEach(dto -> Assertions.assertFalse(dto.getCategories().isEmpty()));
+        // the cursor query plus one categories query for the single chunk
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+}
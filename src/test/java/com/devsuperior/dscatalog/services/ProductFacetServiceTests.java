@@ -0,0 +1,105 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.FacetResultDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.services.events.PricesAdjustedEvent;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+
+class ProductFacetServiceTests {
+
+    private ProductFacetService service;
+
+    @BeforeEach
+    void setup() {
+        service = new ProductFacetService(mock(ProductExportService.class), new double[] { 0, 100, 500 });
+
+        index(1L, "Notebook", 2500.0, 1L, 2L);
+        index(2L, "Mouse", 80.0, 1L, 2L);
+        index(3L, "Monitor", 450.0, 1L, 2L);
+        index(4L, "Teclado", 150.0, 1L, 2L, 3L);
+        index(5L, "Livro", 60.0, 3L);
+        index(6L, "Cabo", 100.0, 1L);
+    }
+
+    @Test
+    void searchShouldIntersectCategoriesAndPriceRangeSortedByPrice() {
+
+        final FacetResultDTO result = service.search(Set.of(1L, 2L), 100.0, 500.0,
+                PageRequest.of(0, 10, Sort.by("price")));
+
+        Assertions.assertEquals(2L, result.getTotalElements());
+        Assertions.assertEquals(List.of(4L, 3L), ids(result));
+    }
+
+    @Test
+    void searchShouldPageSortedMatches() {
+
+        final FacetResultDTO result = service.search(Set.of(1L), null, null,
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price")));
+
+        Assertions.assertEquals(5L, result.getTotalElements());
+        Assertions.assertEquals(List.of(4L, 6L), ids(result));
+    }
+
+    @Test
+    void searchShouldCountCategoriesOfMatchesAndPricesIgnoringPriceRange() {
+
+        final FacetResultDTO result = service.search(Set.of(2L), 100.0, 500.0, PageRequest.of(0, 10));
+
+        Assertions.assertEquals(2, result.getCategories().get(1L));
+        Assertions.assertEquals(1, result.getCategories().get(3L));
+        Assertions.assertEquals(List.of(1, 2, 1), result.getPrices().stream()
+                .map(FacetResultDTO.PriceBucket::getCount).collect(Collectors.toList()));
+        Assertions.assertNull(result.getPrices().get(0).getMinPrice());
+        Assertions.assertEquals(500.0, result.getPrices().get(1).getMaxPrice());
+    }
+
+    @Test
+    void searchShouldReturnNothingForUnknownCategory() {
+
+        final FacetResultDTO result = service.search(Set.of(1L, 99L), null, null, PageRequest.of(0, 10));
+
+        Assertions.assertEquals(0L, result.getTotalElements());
+        Assertions.assertTrue(result.getCategories().isEmpty());
+    }
+
+    @Test
+    void searchShouldFollowUpdatesDeletesAndPriceAdjustments() {
+
+        index(2L, "Mouse", 90.0, 3L);
+        service.onProductChanged(ProductChangedEvent.deleted(3L));
+        service.onPricesAdjusted(new PricesAdjustedEvent(List.of(5L), 1.0, 50.0));
+        index(7L, "Headset", 300.0, 2L);
+
+        Assertions.assertEquals(List.of(4L, 7L, 1L), ids(service.search(Set.of(2L), null, null,
+                PageRequest.of(0, 10, Sort.by("price")))));
+        Assertions.assertEquals(List.of(2L, 5L), ids(service.search(Set.of(3L), 0.0, 110.0,
+                PageRequest.of(0, 10, Sort.by("price")))));
+    }
+
+    private static List<Long> ids(FacetResultDTO result) {
+        return result.getContent().stream().map(ProductDTO::getId).collect(Collectors.toList());
+    }
+
+    private void index(Long id, String name, Double price, Long... categoryIds) {
+        final Product product = new Product(id, name, null, price, null, Instant.now());
+        final List<CategoryDTO> categories = Arrays.stream(categoryIds).map(categoryId -> new CategoryDTO(categoryId, null))
+                .collect(Collectors.toList());
+        service.onProductChanged(ProductChangedEvent.saved(product, categories));
+    }
+}
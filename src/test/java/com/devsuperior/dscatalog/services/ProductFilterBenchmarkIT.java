@@ -0,0 +1,121 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Seeds about a million products and checks that the filtered listing is
+ * answered from the product listing table through its indexes.
+ * Run with: mvn test -Dtest=ProductFilterBenchmarkIT -Dbenchmark=true
+ * [-Dbenchmark.products=<count>]
+ */
+@SpringBootTest
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductFilterBenchmarkIT {
+
+    private static final long FIRST_ID = 1_000_000L;
+    private static final long PRODUCTS = Long.getLong("benchmark.products", 1_000_000L);
+    private static final long FIRST_CATEGORY_ID = 1_000L;
+    private static final long CATEGORIES = 100L;
+    private static final int RUNS = 20;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+
+        final long start = System.nanoTime();
+        jdbcTemplate.update("INSERT INTO tb_category (id, name, path, created_at) "
+                + "SELECT X, CONCAT('Category ', X), '/', NOW() FROM SYSTEM_RANGE(?, ?)",
+                FIRST_CATEGORY_ID, FIRST_CATEGORY_ID + CATEGORIES - 1);
+        jdbcTemplate.update("INSERT INTO tb_product (id, name, price, date, description, img_url) "
+                + "SELECT X, CONCAT('Product ', X), MOD(X * 7919, 500000) / 100.0, NOW(), 'Benchmark product', '' "
+                + "FROM SYSTEM_RANGE(?, ?)",
+                FIRST_ID, FIRST_ID + PRODUCTS - 1);
+        jdbcTemplate.update("INSERT INTO tb_product_category (product_id, category_id) "
+                + "SELECT X, ? + MOD(X, ?) FROM SYSTEM_RANGE(?, ?)",
+                FIRST_CATEGORY_ID, CATEGORIES, FIRST_ID, FIRST_ID + PRODUCTS - 1);
+        // the seeded rows are listed with SQL as well; a rebuild through JPA
+        // does not fit a million products into the test heap next to H2
+        jdbcTemplate.update("INSERT INTO tb_product_listing (id, name, description, price, img_url, date, version, "
+                + "categories) "
+                + "SELECT X, CONCAT('Product ', X), 'Benchmark product', MOD(X * 7919, 500000) / 100.0, '', NOW(), 0, "
+                + "CONCAT('[{\"id\":', ? + MOD(X, ?), ',\"name\":\"Category ', ? + MOD(X, ?), "
+                + "'\",\"version\":0,\"prefix\":\"/', ? + MOD(X, ?), '/\"}]') FROM SYSTEM_RANGE(?, ?)",
+                FIRST_CATEGORY_ID, CATEGORIES, FIRST_CATEGORY_ID, CATEGORIES, FIRST_CATEGORY_ID, CATEGORIES,
+                FIRST_ID, FIRST_ID + PRODUCTS - 1);
+        jdbcTemplate.update("INSERT INTO tb_product_listing_category (listing_id, category_id, direct) "
+                + "SELECT X, ? + MOD(X, ?), TRUE FROM SYSTEM_RANGE(?, ?)",
+                FIRST_CATEGORY_ID, CATEGORIES, FIRST_ID, FIRST_ID + PRODUCTS - 1);
+        jdbcTemplate.execute("ANALYZE");
+        System.out.printf("seeded %d products in %.1f s%n", PRODUCTS, (System.nanoTime() - start) / 1e9);
+    }
+
+    @Test
+    void categoryFilterShouldLookUpCategoryLinksByIndex() {
+
+        final String plan = explain("SELECT p.id FROM tb_product_listing p WHERE p.id IN "
+                + "(SELECT l.listing_id FROM tb_product_listing_category l WHERE l.category_id = 1042 AND l.direct) "
+                + "ORDER BY p.id LIMIT 20");
+
+        Assertions.assertTrue(plan.matches("(?s).*PRIMARY_KEY_\\w*: CATEGORY_ID = 1042.*"), plan);
+        time("categoryId", new ProductFilterDTO(1042L, null, null, null));
+        final ProductFilterDTO subtree = new ProductFilterDTO(1042L, null, null, null);
+        subtree.setIncludeDescendants(true);
+        time("category subtree", subtree);
+    }
+
+    @Test
+    void priceFilterShouldUsePriceIndex() {
+
+        final String plan = explain("SELECT p.id FROM tb_product_listing p WHERE p.price >= 100.0 AND p.price <= 110.0 "
+                + "ORDER BY p.price LIMIT 20");
+
+        Assertions.assertTrue(plan.contains("IDX_PRODUCT_LISTING_PRICE"), plan);
+        time("price range", new ProductFilterDTO(null, 100.0, 110.0, null));
+    }
+
+    @Test
+    void namePrefixFilterShouldUseNameIndex() {
+
+        final String plan = explain("SELECT p.id FROM tb_product_listing p WHERE p.name LIKE 'Product 12345%' "
+                + "ESCAPE '\\' ORDER BY p.name LIMIT 20");
+
+        Assertions.assertTrue(plan.contains("IDX_PRODUCT_LISTING_NAME"), plan);
+        time("name prefix", new ProductFilterDTO(null, null, null, "Product 12345"));
+    }
+
+    private String explain(String sql) {
+        final String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        System.out.println(plan);
+        return plan;
+    }
+
+    private void time(String label, ProductFilterDTO filter) {
+        final PageRequest pageRequest = PageRequest.of(0, 20, Sort.by("id"));
+        for (int i = 0; i < RUNS; i++) {
+            service.findAllPaged(filter, pageRequest, CountMode.NONE, ProductFields.ALL);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            service.findAllPaged(filter, pageRequest, CountMode.EXACT, ProductFields.ALL);
+        }
+        System.out.printf("%s: %.2f ms per page with count%n", label, (System.nanoTime() - start) / 1e6 / RUNS);
+    }
+}
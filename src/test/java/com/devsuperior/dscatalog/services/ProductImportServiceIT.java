@@ -0,0 +1,78 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.ImportResultDTO;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+@Transactional
+@SpringBootTest(properties = "dscatalog.products.import.chunk-size=2")
+class ProductImportServiceIT {
+
+    @Autowired
+    private ProductImportService service;
+
+    @Autowired
+    private ProductRepository repository;
+
+    private Long existingId;
+    private Long countTotalProducts;
+
+    @BeforeEach
+    void setup() throws Exception {
+
+        existingId = 1L;
+        countTotalProducts = 25L;
+    }
+
+    @Test
+    void importNdjsonShouldStoreValidRowsAndReportFailingRows() throws Exception {
+
+        final String body = "{\"name\":\"Phone\",\"price\":800.0,\"categories\":[{\"id\":1}]}\n"
+                + "{\"name\":\n"
+                + "{\"id\":" + existingId + ",\"name\":\"Renamed\",\"price\":10.0,\"categories\":[]}\n"
+                + "\n"
+                + "{\"name\":\"Tablet\",\"price\":900.0,\"categories\":[{\"id\":1000}]}\n"
+                + "{\"name\":\"Watch\",\"price\":300.0,\"categories\":[{\"id\":2}]}\n";
+
+        final ImportResultDTO result = service.importNdjson(stream(body));
+
+        Assertions.assertEquals(5, result.getRows());
+        Assertions.assertEquals(2, result.getCreated());
+        Assertions.assertEquals(1, result.getUpdated());
+        Assertions.assertEquals(2, result.getFailed());
+        Assertions.assertEquals(2, result.getFailures().get(0).getIndex());
+        Assertions.assertEquals(5, result.getFailures().get(1).getIndex());
+        Assertions.assertEquals(countTotalProducts + 2, repository.count());
+        Assertions.assertEquals("Renamed", repository.findById(existingId).get().getName());
+    }
+
+    @Test
+    void importCsvShouldStoreValidRowsAndReportFailingRows() throws Exception {
+
+        final String body = "name,description,price,imgUrl,date,categories\n"
+                + "Phone,\"Good, cheap phone\",800.0,,2020-07-13T20:50:07Z,1;2\n"
+                + "Tablet,,not-a-price,,,1\n"
+                + "Watch,,300.0,,,\n";
+
+        final ImportResultDTO result = service.importCsv(stream(body));
+
+        Assertions.assertEquals(3, result.getRows());
+        Assertions.assertEquals(2, result.getCreated());
+        Assertions.assertEquals(1, result.getFailed());
+        Assertions.assertEquals(2, result.getFailures().get(0).getIndex());
+        Assertions.assertEquals(countTotalProducts + 2, repository.count());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO;
+import com.devsuperior.dscatalog.dto.BatchItemResultDTO.Status;
+import com.devsuperior.dscatalog.dto.ImportResultDTO;
+import com.devsuperior.dscatalog.repositories.CategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+class ProductImportServiceTests {
+
+    private ProductImportService service;
+
+    @Mock
+    private ProductBatchService batchService;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    private String validRow;
+
+    @BeforeEach
+    void setup() {
+        service = new ProductImportService(batchService, categoryRepository, new ObjectMapper(), 2);
+        validRow = "{\"name\":\"Phone\",\"price\":800.0}\n";
+        when(categoryRepository.findAllIds()).thenReturn(List.of(1L));
+    }
+
+    @Test
+    void importNdjsonShouldFailRowsOfChunkThatCouldNotBeStoredAndGoOn() throws Exception {
+
+        when(batchService.saveAll(ArgumentMatchers.anyList(), ArgumentMatchers.anySet()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of(new BatchItemResultDTO(0, 30L, Status.CREATED, null)));
+
+        final ImportResultDTO result = service.importNdjson(stream(validRow + validRow + validRow));
+
+        Assertions.assertEquals(3, result.getRows());
+        Assertions.assertEquals(1, result.getCreated());
+        Assertions.assertEquals(2, result.getFailed());
+        Assertions.assertEquals(1, result.getFailures().get(0).getIndex());
+        Assertions.assertEquals(2, result.getFailures().get(1).getIndex());
+        Assertions.assertTrue(result.getFailures().get(0).getMessage().contains("timeout"));
+        verify(batchService, times(2)).saveAll(ArgumentMatchers.anyList(), ArgumentMatchers.anySet());
+    }
+
+    @Test
+    void importNdjsonShouldReportLowestFailingRowsAndCountTheOthers() throws Exception {
+
+        when(batchService.saveAll(ArgumentMatchers.anyList(), ArgumentMatchers.anySet()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        final StringBuilder body = new StringBuilder(validRow);
+        for (int i = 0; i < 1000; i++) {
+            body.append("{\"name\":\n");
+        }
+        body.append(validRow);
+
+        final ImportResultDTO result = service.importNdjson(stream(body.toString()));
+
+        Assertions.assertEquals(1002, result.getFailed());
+        Assertions.assertEquals(1000, result.getFailures().size());
+        Assertions.assertEquals(2, result.getOmittedFailures());
+        Assertions.assertEquals(1, result.getFailures().get(0).getIndex());
+        Assertions.assertEquals(1000, result.getFailures().get(999).getIndex());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,226 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.tests.Factory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Transactional
+@SpringBootTest
+class ProductListingServiceIT {
+
+    @Autowired
+    private ProductListingService listingService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+    private PageRequest pageRequest;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        pageRequest = PageRequest.of(0, 50, Sort.by("id"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void listingShouldReadOneTableWithoutLoadingEntities() {
+
+        flushAndClear();
+        statistics.clear();
+
+        final Page<ProductDTO> result = (Page<ProductDTO>) productService.findAllPaged(new ProductFilterDTO(),
+                PageRequest.of(0, 10), CountMode.EXACT, ProductFields.ALL);
+
+        Assertions.assertEquals(10, result.getNumberOfElements());
+        Assertions.assertEquals(0, statistics.getEntityLoadCount());
+        Assertions.assertEquals(0, statistics.getCollectionLoadCount());
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listingShouldLeaveFieldsThatWereNotRequestedEmpty() {
+
+        flushAndClear();
+        statistics.clear();
+
+        final List<ProductDTO> result = listingService
+                .findSlice(null, PageRequest.of(0, 10), ProductFields.parse("name,price", false)).getContent();
+
+        Assertions.assertEquals(10, result.size());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        for (ProductDTO dto : result) {
+            Assertions.assertNotNull(dto.getId());
+            Assertions.assertNotNull(dto.getName());
+            Assertions.assertNotNull(dto.getPrice());
+            Assertions.assertNull(dto.getDescription());
+            Assertions.assertNull(dto.getImgUrl());
+            Assertions.assertTrue(dto.getCategories().isEmpty());
+        }
+    }
+
+    @Test
+    void listingShouldMatchEntitiesAfterProductWrites() {
+
+        final ProductDTO inserted = productService.insert(productIn(1L, 3L));
+        flushAndClear();
+        final ProductDTO moved = productService.findById(2L);
+        moved.getCategories().clear();
+        moved.getCategories().add(new CategoryDTO(1L, null));
+        productService.update(2L, moved);
+        productService.delete(3L);
+        flushAndClear();
+
+        final List<ProductDTO> listed = listed(null);
+
+        Assertions.assertTrue(ids(listed).contains(inserted.getId()));
+        Assertions.assertFalse(ids(listed).contains(3L));
+        assertSameAsEntities(listed);
+    }
+
+    @Test
+    void categoryRenameShouldRewriteLinkedRows() {
+
+        categoryService.update(3L, new CategoryDTO(3L, "Hardware"));
+        flushAndClear();
+
+        final List<ProductDTO> listed = listed(new ProductFilterDTO(3L, null, null, null));
+
+        Assertions.assertEquals(23, listed.size());
+        listed.forEach(dto -> Assertions.assertTrue(dto.getCategories().stream()
+                .anyMatch(category -> "Hardware".equals(category.getName()))));
+        assertSameAsEntities(listed);
+    }
+
+    @Test
+    void categoryMoveShouldRewritePathsOfSubtreeRows() {
+
+        final CategoryDTO child = new CategoryDTO(null, "Notebooks");
+        child.setParentId(3L);
+        final Long childId = categoryService.insert(child).getId();
+        final Long productId = productService.insert(productIn(childId)).getId();
+        flushAndClear();
+
+        categoryService.move(3L, 1L);
+        flushAndClear();
+
+        final ProductFilterDTO filter = new ProductFilterDTO(1L, null, null, null);
+        filter.setIncludeDescendants(true);
+        final List<ProductDTO> listed = listed(filter);
+
+        Assertions.assertTrue(ids(listed).contains(productId));
+        Assertions.assertTrue(ids(listed).contains(4L));
+        assertSameAsEntities(listed);
+    }
+
+    @Test
+    void categoryMoveShouldRelinkRowsFromOldToNewAncestors() {
+
+        final CategoryDTO child = new CategoryDTO(null, "Notebooks");
+        child.setParentId(3L);
+        final Long childId = categoryService.insert(child).getId();
+        final Long productId = productService.insert(productIn(childId)).getId();
+        flushAndClear();
+
+        categoryService.move(childId, 2L);
+        flushAndClear();
+
+        Assertions.assertFalse(ids(listed(subtreeOf(3L))).contains(productId));
+        Assertions.assertTrue(ids(listed(subtreeOf(2L))).contains(productId));
+        Assertions.assertFalse(ids(listed(new ProductFilterDTO(2L, null, null, null))).contains(productId));
+        Assertions.assertEquals(List.of(productId), ids(listed(new ProductFilterDTO(childId, null, null, null))));
+    }
+
+    @Test
+    void rebuildShouldReproduceIncrementalRows() {
+
+        productService.insert(productIn(2L));
+        categoryService.update(2L, new CategoryDTO(2L, "Gadgets"));
+        flushAndClear();
+        final List<String> incremental = snapshot(listed(null));
+
+        listingService.rebuild();
+        flushAndClear();
+
+        Assertions.assertEquals(incremental, snapshot(listed(null)));
+    }
+
+    private static ProductFilterDTO subtreeOf(Long categoryId) {
+        final ProductFilterDTO filter = new ProductFilterDTO(categoryId, null, null, null);
+        filter.setIncludeDescendants(true);
+        return filter;
+    }
+
+    private List<ProductDTO> listed(ProductFilterDTO filter) {
+        final ProductFilterDTO criteria = filter != null ? filter : new ProductFilterDTO(null, null, null, null);
+        return productService.findAllPaged(criteria, pageRequest, CountMode.NONE, ProductFields.ALL).getContent();
+    }
+
+    private void assertSameAsEntities(List<ProductDTO> listed) {
+        Assertions.assertEquals(snapshot(listed), snapshot(listed.stream()
+                .map(dto -> productService.findById(dto.getId())).collect(Collectors.toList())));
+    }
+
+    private static List<String> snapshot(List<ProductDTO> products) {
+        return products.stream().map(dto -> dto.getId() + ":" + dto.getName() + ":" + dto.getPrice() + ":"
+                + dto.getVersion() + ":" + dto.getCategories().stream()
+                        .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                        .map(category -> category.getId() + "=" + category.getName() + "@" + category.getVersion()
+                                + "^" + category.getParentId())
+                        .collect(Collectors.joining(",")))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).collect(Collectors.toList());
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    private static ProductDTO productIn(Long... categoryIds) {
+        final ProductDTO dto = Factory.createProductDTO();
+        dto.setId(null);
+        dto.getCategories().clear();
+        for (Long categoryId : categoryIds) {
+            dto.getCategories().add(new CategoryDTO(categoryId, null));
+        }
+        return dto;
+    }
+}
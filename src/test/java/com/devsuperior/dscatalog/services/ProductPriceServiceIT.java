@@ -0,0 +1,125 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.PriceAdjustmentDTO;
+import com.devsuperior.dscatalog.dto.PriceAdjustmentResultDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Transactional
+@SpringBootTest
+class ProductPriceServiceIT {
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private CategoryStatsService stats;
+
+    @Autowired
+    private ProductListingService listing;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private ProductPriceService service;
+    private Map<Long, Product> before;
+
+    @BeforeEach
+    void setup() {
+        service = new ProductPriceService(repository, cacheService, stats, listing, publisher, transactionManager, 5);
+        before = repository.findAll().stream().collect(Collectors.toMap(Product::getId, Function.identity()));
+        entityManager.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void adjustShouldApplyPercentToMatchingProductsInChunks() {
+
+        final PriceAdjustmentDTO dto = new PriceAdjustmentDTO();
+        dto.setCategoryId(3L);
+        dto.setPercent(10.0);
+
+        final PriceAdjustmentResultDTO result = service.adjust(dto);
+
+        Assertions.assertEquals(23L, result.getUpdated());
+        Assertions.assertEquals(5, result.getChunks());
+        final Product unchanged = repository.findById(1L).orElseThrow();
+        Assertions.assertEquals(before.get(1L).getPrice(), unchanged.getPrice());
+        Assertions.assertEquals(before.get(1L).getVersion(), unchanged.getVersion());
+        final Product adjusted = repository.findById(2L).orElseThrow();
+        Assertions.assertEquals(before.get(2L).getPrice() * 1.1, adjusted.getPrice(), 1e-9);
+        Assertions.assertEquals(before.get(2L).getVersion() + 1, adjusted.getVersion());
+        Assertions.assertNotNull(adjusted.getUpdatedAt());
+    }
+
+    @Test
+    void adjustShouldSkipProductsWhosePriceWouldTurnNegative() {
+
+        final PriceAdjustmentDTO dto = new PriceAdjustmentDTO();
+        dto.setAmount(-100.0);
+
+        final PriceAdjustmentResultDTO result = service.adjust(dto);
+
+        Assertions.assertEquals(24L, result.getUpdated());
+        Assertions.assertEquals(before.get(1L).getPrice(), repository.findById(1L).orElseThrow().getPrice());
+        Assertions.assertEquals(before.get(5L).getPrice() - 100.0, repository.findById(5L).orElseThrow().getPrice(), 1e-9);
+    }
+
+    @Test
+    void adjustShouldEvictCachedProducts() {
+
+        final Double price = productService.findById(2L).getPrice();
+        final PriceAdjustmentDTO dto = new PriceAdjustmentDTO();
+        dto.setName("Smart");
+        dto.setAmount(1.0);
+
+        service.adjust(dto);
+
+        Assertions.assertEquals(price + 1.0, productService.findById(2L).getPrice(), 1e-9);
+    }
+
+    @Test
+    void adjustShouldThrowBadRequestExceptionWhenPercentAndAmountAreBothPresent() {
+
+        final PriceAdjustmentDTO dto = new PriceAdjustmentDTO();
+        dto.setPercent(5.0);
+        dto.setAmount(5.0);
+
+        Assertions.assertThrows(BadRequestException.class, () -> service.adjust(dto));
+    }
+}
@@ -0,0 +1,91 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.entities.Product;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+class ProductSearchServiceTests {
+
+    private ProductSearchService service;
+    private PageRequest pageRequest;
+
+    @BeforeEach
+    void setup() throws Exception {
+        service = new ProductSearchService(mock(ProductExportService.class));
+        pageRequest = PageRequest.of(0, 10);
+
+        index(1L, "Smart TV", "Televisão com controle remoto", 2190.0, 2L);
+        index(2L, "Controle remoto universal", "Funciona com qualquer TV", 90.0, 2L);
+        index(3L, "Livro de eletrônica", "Eletrônicos para iniciantes", 60.0, 1L);
+    }
+
+    @Test
+    void searchShouldMatchIgnoringCaseAndAccents() {
+
+        final Page<ProductDTO> result = service.search("ELETRONICOS", null, null, null, pageRequest);
+
+        Assertions.assertEquals(1, result.getTotalElements());
+        Assertions.assertEquals(3L, result.getContent().get(0).getId());
+    }
+
+    @Test
+    void searchShouldRequireEveryTermAndRankNameMatchesFirst() {
+
+        final Page<ProductDTO> result = service.search("controle remoto", null, null, null, pageRequest);
+
+        Assertions.assertEquals(2, result.getTotalElements());
+        Assertions.assertEquals(2L, result.getContent().get(0).getId());
+        Assertions.assertEquals(1L, result.getContent().get(1).getId());
+    }
+
+    @Test
+    void searchShouldApplyCategoryAndPriceFilters() {
+
+        Assertions.assertEquals(0, service.search("tv", 1L, null, null, pageRequest).getTotalElements());
+        Assertions.assertEquals(1, service.search("tv", 2L, 1000.0, null, pageRequest).getTotalElements());
+        Assertions.assertEquals(1, service.search("tv", null, null, 100.0, pageRequest).getTotalElements());
+    }
+
+    @Test
+    void searchShouldFollowUpdatesAndDeletes() {
+
+        index(2L, "Suporte de parede", "Para televisores", 150.0, 2L);
+        service.onProductChanged(ProductChangedEvent.deleted(3L));
+
+        Assertions.assertEquals(1, service.search("remoto", null, null, null, pageRequest).getTotalElements());
+        Assertions.assertEquals(1, service.search("suporte", null, null, null, pageRequest).getTotalElements());
+        Assertions.assertEquals(0, service.search("eletronicos", null, null, null, pageRequest).getTotalElements());
+    }
+
+    @Test
+    void searchShouldPageRankedResults() {
+
+        final Page<ProductDTO> result = service.search("controle remoto", null, null, null, PageRequest.of(1, 1));
+
+        Assertions.assertEquals(2, result.getTotalElements());
+        Assertions.assertEquals(1L, result.getContent().get(0).getId());
+    }
+
+    @Test
+    void searchShouldThrowBadRequestExceptionWhenQueryHasNoWords() {
+
+        Assertions.assertThrows(BadRequestException.class, () -> service.search(" - ", null, null, null, pageRequest));
+    }
+
+    private void index(Long id, String name, String description, Double price, Long categoryId) {
+        final Product product = new Product(id, name, description, price, null, Instant.now());
+        service.onProductChanged(ProductChangedEvent.saved(product, List.of(new CategoryDTO(categoryId, null))));
+    }
+}
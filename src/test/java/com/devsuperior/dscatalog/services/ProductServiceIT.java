@@ -1,18 +1,36 @@
 package com.devsuperior.dscatalog.services;
 
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.CursorPageDTO;
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.devsuperior.dscatalog.dto.ProductPatchDTO;
+import com.devsuperior.dscatalog.entities.Product;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.exceptions.BadRequestException;
+import com.devsuperior.dscatalog.services.exceptions.PreconditionFailedException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+import com.devsuperior.dscatalog.tests.Factory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Transactional
 @SpringBootTest
 class ProductServiceIT {
@@ -23,9 +41,19 @@ class ProductServiceIT {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     private Long existingId;
     private Long nonExistingId;
     private Long countTotalProducts;
+    private Statistics statistics;
 
     @BeforeEach
     void setup() throws Exception {
@@ -33,6 +61,101 @@ class ProductServiceIT {
         existingId = 1L;
         nonExistingId = 1000L;
         countTotalProducts = 25L;
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        clearCaches();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // entries loaded inside the rolled back test transaction must not leak
+        clearCaches();
+    }
+
+    private void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void findByIdShouldLoadProductAndCategoriesInOneStatement() {
+
+        final ProductDTO result = service.findById(existingId);
+
+        Assertions.assertFalse(result.getCategories().isEmpty());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByIdShouldServeRepeatedReadsFromCache() {
+
+        service.findById(existingId);
+        entityManager.clear();
+        statistics.clear();
+
+        final ProductDTO result = service.findById(existingId);
+
+        Assertions.assertEquals(existingId, result.getId());
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void categoryUpdateShouldEvictCachedProductsEmbeddingCategory() {
+
+        final Long categoryId = service.findById(existingId).getCategories().get(0).getId();
+
+        categoryService.update(categoryId, new CategoryDTO(categoryId, "Renamed"));
+        entityManager.flush();
+        entityManager.clear();
+
+        final ProductDTO result = service.findById(existingId);
+
+        Assertions.assertEquals("Renamed", result.getCategories().get(0).getName());
+    }
+
+    @Test
+    void patchShouldUpdateOnlyPriceWithoutTouchingCategoryLinks() {
+
+        final ProductPatchDTO patch = new ProductPatchDTO();
+        patch.setPrice(123.0);
+
+        final ProductDTO result = service.patch(existingId, patch, null);
+
+        Assertions.assertEquals(123.0, result.getPrice());
+        Assertions.assertEquals("The Lord of the Rings", result.getName());
+        // product and categories select, a single UPDATE of tb_product, then the
+        // category stats: lookup of bounded categories, range widening and the
+        // recompute of the category whose extreme price moved, and the listing
+        // row lookup; its UPDATE is flushed at commit
+        Assertions.assertEquals(6, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(0, statistics.getCollectionUpdateCount());
+        Assertions.assertEquals(0, statistics.getCollectionRecreateCount());
+    }
+
+    @Test
+    void patchShouldWriteOnlyAddedAndRemovedCategoryLinks() {
+
+        final ProductPatchDTO patch = new ProductPatchDTO();
+        patch.setCategories(List.of(new CategoryDTO(1L, null)));
+
+        service.patch(existingId, patch, null);
+        entityManager.clear();
+
+        Assertions.assertEquals(0, statistics.getCollectionRecreateCount());
+        Assertions.assertEquals(1, statistics.getCollectionUpdateCount());
+        final ProductDTO result = service.findById(existingId);
+        Assertions.assertEquals(List.of(1L), result.getCategories().stream().map(CategoryDTO::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void updateShouldThrowPreconditionFailedExceptionWhenExpectedVersionIsStale() {
+
+        final ProductDTO dto = service.findById(existingId);
+
+        Assertions.assertThrows(PreconditionFailedException.class,
+                () -> service.update(existingId, dto, dto.getVersion() + 1));
     }
 
     @Test
@@ -40,7 +163,8 @@ class ProductServiceIT {
 
         final PageRequest pageRequest = PageRequest.of(0 , 10);
 
-        final Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(new ProductFilterDTO(), pageRequest, CountMode.EXACT,
+                ProductFields.WITHOUT_CATEGORIES);
 
         Assertions.assertFalse(result.isEmpty());
         Assertions.assertEquals(0, result.getNumber());
@@ -53,7 +177,8 @@ class ProductServiceIT {
 
         final PageRequest pageRequest = PageRequest.of(0 , 10, Sort.by("name"));
 
-        final Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(new ProductFilterDTO(), pageRequest, CountMode.EXACT,
+                ProductFields.WITHOUT_CATEGORIES);
 
         Assertions.assertFalse(result.isEmpty());
         Assertions.assertEquals("Macbook Pro", result.getContent().get(0).getName());
@@ -66,11 +191,149 @@ class ProductServiceIT {
 
         final PageRequest pageRequest = PageRequest.of(50 , 10);
 
-        final Page<ProductDTO> result = service.findAllPaged(pageRequest);
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(new ProductFilterDTO(), pageRequest, CountMode.EXACT,
+                ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void findAllPagedShouldSkipCountQueryWhenCountModeIsNone() {
+
+        final Slice<ProductDTO> result = service.findAllPaged(new ProductFilterDTO(), PageRequest.of(0, 10), CountMode.NONE, ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertEquals(10, result.getNumberOfElements());
+        Assertions.assertTrue(result.hasNext());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllPagedShouldReuseCachedTotalWhenCountModeIsEstimated() {
+
+        service.findAllPaged(new ProductFilterDTO(), PageRequest.of(0, 10), CountMode.ESTIMATED, ProductFields.WITHOUT_CATEGORIES);
+        entityManager.clear();
+        statistics.clear();
+
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(new ProductFilterDTO(), PageRequest.of(1, 10), CountMode.ESTIMATED, ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertEquals(countTotalProducts, result.getTotalElements());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllPagedShouldFilterByCategoryWithoutDuplicatingProducts() {
+
+        final ProductFilterDTO filter = new ProductFilterDTO(3L, null, null, null);
+
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(filter, PageRequest.of(0, 10, Sort.by("id")), CountMode.EXACT, ProductFields.ALL);
+
+        Assertions.assertEquals(23, result.getTotalElements());
+        Assertions.assertEquals(10, result.getNumberOfElements());
+        Assertions.assertEquals(2L, result.getContent().get(0).getId());
+        Assertions.assertEquals(2, result.getContent().get(0).getCategories().size());
+        // page and count on the listing table, which carries the categories
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllPagedShouldFilterByPriceRange() {
+
+        final ProductFilterDTO filter = new ProductFilterDTO(null, 1000.0, 1300.0, null);
+
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(filter, PageRequest.of(0, 10, Sort.by("price")), CountMode.EXACT, ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertEquals(3, result.getTotalElements());
+        Assertions.assertEquals("PC Gamer", result.getContent().get(0).getName());
+        Assertions.assertEquals("Macbook Pro", result.getContent().get(1).getName());
+        Assertions.assertEquals("PC Gamer Turbo", result.getContent().get(2).getName());
+    }
+
+    @Test
+    void findAllPagedShouldCombineNamePrefixAndMaxPriceWithoutCountQueryWhenCountModeIsNone() {
+
+        final ProductFilterDTO filter = new ProductFilterDTO(null, null, 1400.0, "PC Gamer");
+
+        final Slice<ProductDTO> result = service.findAllPaged(filter, PageRequest.of(0, 3, Sort.by("id")), CountMode.NONE, ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertFalse(result instanceof Page);
+        Assertions.assertEquals(3, result.getNumberOfElements());
+        Assertions.assertTrue(result.hasNext());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllPagedShouldTreatLikeWildcardsInNameLiterally() {
+
+        final ProductFilterDTO filter = new ProductFilterDTO(null, null, null, "%");
+
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(filter, PageRequest.of(0, 10), CountMode.EXACT, ProductFields.WITHOUT_CATEGORIES);
 
         Assertions.assertTrue(result.isEmpty());
     }
 
+    @Test
+    void findAllByCursorShouldWalkWholeCatalogSortedByNameWithoutCountQuery() {
+
+        final List<String> names = new ArrayList<>();
+        String after = "";
+        int pages = 0;
+        do {
+            final CursorPageDTO<ProductDTO> result = service.findAllByCursor(after, PageRequest.of(0, 10, Sort.by("name")));
+            result.getContent().forEach(dto -> names.add(dto.getName()));
+            after = result.getNext();
+            pages++;
+        } while (after != null);
+
+        Assertions.assertEquals(3, pages);
+        Assertions.assertEquals(countTotalProducts, names.size());
+        Assertions.assertEquals("Macbook Pro", names.get(0));
+        Assertions.assertEquals("PC Gamer", names.get(1));
+        for (int i = 1; i < names.size(); i++) {
+            Assertions.assertTrue(names.get(i - 1).compareTo(names.get(i)) <= 0);
+        }
+        // one seek query per page, never a count
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllByCursorShouldWalkProductsWithoutSortValueLast() {
+
+        for (int i = 0; i < 3; i++) {
+            final Product product = Factory.createProduct();
+            product.setId(null);
+            product.setName(null);
+            product.setPrice(null);
+            product.getCategories().clear();
+            repository.save(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        for (String key : List.of("name", "price")) {
+            // 13 per page, so the second cursor points at the first row without a value
+            final List<ProductDTO> products = new ArrayList<>();
+            String after = "";
+            do {
+                final CursorPageDTO<ProductDTO> result = service.findAllByCursor(after, PageRequest.of(0, 13, Sort.by(key)));
+                products.addAll(result.getContent());
+                after = result.getNext();
+            } while (after != null);
+
+            Assertions.assertEquals(countTotalProducts + 3, products.stream().map(ProductDTO::getId).distinct().count());
+            Assertions.assertEquals(countTotalProducts + 3, products.size());
+            for (int i = 0; i < products.size(); i++) {
+                Assertions.assertEquals(i >= countTotalProducts, products.get(i).getPrice() == null);
+            }
+        }
+    }
+
+    @Test
+    void findAllByCursorShouldThrowBadRequestExceptionWhenCursorIsInvalid() {
+
+        Assertions.assertThrows(BadRequestException.class,
+                () -> service.findAllByCursor("not-a-cursor", PageRequest.of(0, 10)));
+    }
+
     @Test
     void deleteShouldDeleteResourceWhenIdExists() {
 
@@ -1,11 +1,14 @@
 package com.devsuperior.dscatalog.services;
 
 import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
 import com.devsuperior.dscatalog.entities.Category;
 import com.devsuperior.dscatalog.entities.Product;
 import com.devsuperior.dscatalog.repositories.CategoryRepository;
 import com.devsuperior.dscatalog.repositories.ProductRepository;
+import com.devsuperior.dscatalog.services.events.ProductChangedEvent;
 import com.devsuperior.dscatalog.services.exceptions.DatabaseException;
+import com.devsuperior.dscatalog.services.exceptions.PreconditionFailedException;
 import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
 import com.devsuperior.dscatalog.tests.Factory;
 import org.junit.jupiter.api.Assertions;
@@ -16,17 +19,20 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import javax.persistence.EntityNotFoundException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.mockito.Mockito.*;
 
@@ -42,6 +48,24 @@ class ProductServiceTests {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductCountCache productCount;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    @Mock
+    private OptimisticRetry retry;
+
+    @Mock
+    private CategoryStatsService stats;
+
+    @Mock
+    private ProductListingService listing;
+
+    @Mock
+    private ProductLoader loader;
+
     private long existingId;
     private long nonExistingId;
     private long dependentId;
@@ -55,20 +79,25 @@ class ProductServiceTests {
         final Product product = Factory.createProduct();
         productDTO = Factory.createProductDTO();
         final Category category = Factory.createCategory();
-        final PageImpl<Product> page = new PageImpl<>(List.of(product));
+        final PageImpl<ProductDTO> page = new PageImpl<>(List.of(productDTO));
 
-        when(repository.findAll((Pageable) ArgumentMatchers.any())).thenReturn(page);
+        when(listing.findPage(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(page);
+        when(listing.findSlice(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new SliceImpl<>(List.of(productDTO), PageRequest.of(0, 1), true));
+        when(productCount.get()).thenReturn(25L);
 
-        when(repository.findById(existingId)).thenReturn(Optional.of(product));
-        when(repository.findById(nonExistingId)).thenReturn(Optional.empty());
-
-        when(repository.getOne(existingId)).thenReturn(product);
-        when(repository.getOne(nonExistingId)).thenThrow(EntityNotFoundException.class);
+        when(repository.findWithCategoriesById(existingId)).thenReturn(Optional.of(product));
+        when(repository.findWithCategoriesById(nonExistingId)).thenReturn(Optional.empty());
+        when(loader.load(existingId)).thenReturn(productDTO);
+        when(loader.load(nonExistingId)).thenReturn(null);
 
         when(categoryRepository.getOne(existingId)).thenReturn(category);
         when(categoryRepository.getOne(nonExistingId)).thenThrow(EntityNotFoundException.class);
 
         when(repository.save(ArgumentMatchers.any())).thenReturn(product);
+        when(repository.saveAndFlush(ArgumentMatchers.any())).thenReturn(product);
+
+        when(retry.execute(ArgumentMatchers.any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
 
         doNothing().when(repository).deleteById(existingId);
         doThrow(EmptyResultDataAccessException.class).when(repository).deleteById(nonExistingId);
@@ -80,11 +109,66 @@ class ProductServiceTests {
 
         final PageRequest pageable = PageRequest.of(0 , 10);
 
-        final Page<ProductDTO> result = service.findAllPaged(pageable);
+        final Slice<ProductDTO> result = service.findAllPaged(new ProductFilterDTO(), pageable, CountMode.EXACT,
+                ProductFields.WITHOUT_CATEGORIES);
 
         Assertions.assertNotNull(result);
 
-        verify(repository, Mockito.times(1)).findAll(pageable);
+        verify(listing, Mockito.times(1)).findPage(null, pageable, ProductFields.WITHOUT_CATEGORIES);
+    }
+
+    @Test
+    void findAllPagedShouldReturnSliceWithoutCountingWhenCountModeIsNone() {
+
+        final PageRequest pageable = PageRequest.of(0 , 1);
+
+        final Slice<ProductDTO> result = service.findAllPaged(new ProductFilterDTO(), pageable, CountMode.NONE, ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertFalse(result instanceof Page);
+        Assertions.assertTrue(result.hasNext());
+
+        verify(listing, never()).findPage(null, pageable, ProductFields.WITHOUT_CATEGORIES);
+        verify(repository, never()).count();
+        verify(productCount, never()).get();
+    }
+
+    @Test
+    void findAllPagedShouldReturnPageWithCachedTotalWhenCountModeIsEstimated() {
+
+        final PageRequest pageable = PageRequest.of(0 , 1);
+
+        final Slice<ProductDTO> result = service.findAllPaged(new ProductFilterDTO(), pageable, CountMode.ESTIMATED, ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertEquals(25L, ((Page<ProductDTO>) result).getTotalElements());
+
+        verify(repository, never()).count();
+        verify(productCount, times(1)).get();
+    }
+
+    @Test
+    void findAllPagedShouldNotEndPageBeforeLastRowWhenCachedTotalIsStale() {
+
+        final PageRequest pageable = PageRequest.of(30, 1);
+        when(listing.findSlice(null, pageable, ProductFields.WITHOUT_CATEGORIES))
+                .thenReturn(new SliceImpl<>(List.of(productDTO), pageable, true));
+
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(new ProductFilterDTO(), pageable, CountMode.ESTIMATED, ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertEquals(32L, result.getTotalElements());
+        Assertions.assertFalse(result.isLast());
+    }
+
+    @Test
+    void findAllPagedShouldEndAtLastRowWhenCachedTotalIsStale() {
+
+        final PageRequest pageable = PageRequest.of(10, 1);
+        when(listing.findSlice(null, pageable, ProductFields.WITHOUT_CATEGORIES))
+                .thenReturn(new SliceImpl<>(List.of(productDTO), pageable, false));
+
+        final Page<ProductDTO> result = (Page<ProductDTO>) service.findAllPaged(new ProductFilterDTO(), pageable, CountMode.ESTIMATED, ProductFields.WITHOUT_CATEGORIES);
+
+        Assertions.assertEquals(11L, result.getTotalElements());
+        Assertions.assertTrue(result.isLast());
     }
 
     @Test
@@ -94,7 +178,7 @@ class ProductServiceTests {
 
         Assertions.assertNotNull(result);
 
-        verify(repository).findById(existingId);
+        verify(loader).load(existingId);
     }
 
     @Test
@@ -102,7 +186,7 @@ class ProductServiceTests {
 
         Assertions.assertThrows(ResourceNotFoundException.class, () -> service.findById(nonExistingId));
 
-        verify(repository).findById(nonExistingId);
+        verify(loader).load(nonExistingId);
     }
 
     @Test
@@ -112,7 +196,8 @@ class ProductServiceTests {
 
         Assertions.assertNotNull(result);
 
-        verify(repository).getOne(existingId);
+        verify(repository).findWithCategoriesById(existingId);
+        verify(publisher).publishEvent(ArgumentMatchers.any(ProductChangedEvent.class));
     }
 
     @Test
@@ -120,7 +205,16 @@ class ProductServiceTests {
 
         Assertions.assertThrows(ResourceNotFoundException.class, () -> service.update(nonExistingId, productDTO));
 
-        verify(repository).getOne(nonExistingId);
+        verify(repository).findWithCategoriesById(nonExistingId);
+    }
+
+    @Test
+    void updateShouldThrowPreconditionFailedExceptionWhenVersionIsStale() {
+
+        Assertions.assertThrows(PreconditionFailedException.class, () -> service.update(existingId, productDTO, 42L));
+
+        verify(repository, never()).saveAndFlush(ArgumentMatchers.any());
+        verify(publisher, never()).publishEvent(ArgumentMatchers.any());
     }
 
     @Test
@@ -130,6 +224,7 @@ class ProductServiceTests {
 
         verify(repository).deleteById(existingId);
         verify(repository, times(1)).deleteById(existingId);
+        verify(publisher).publishEvent(ArgumentMatchers.any(ProductChangedEvent.class));
     }
 
     @Test
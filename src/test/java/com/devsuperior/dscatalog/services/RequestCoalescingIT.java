@@ -0,0 +1,153 @@
+package com.devsuperior.dscatalog.services;
+
+import com.devsuperior.dscatalog.dto.CategoryDTO;
+import com.devsuperior.dscatalog.dto.ProductDTO;
+import com.devsuperior.dscatalog.dto.ProductFilterDTO;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Not transactional: callers that already run in a transaction are never
+ * coalesced. While every pooled connection is held by the test, the one
+ * caller that runs the load waits for a connection, so the others are
+ * sure to join it before it reaches the database.
+ */
+@SpringBootTest
+class RequestCoalescingIT {
+
+    private static final int CALLERS = 16;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CoalescingAspect coalescing;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        clearCaches();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearCaches();
+    }
+
+    @Test
+    void findByIdShouldRunOneQueryForConcurrentCallersOfSameProduct() throws Exception {
+
+        final List<ProductDTO> results = runConcurrently(() -> productService.findById(1L));
+
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        for (ProductDTO result : results) {
+            Assertions.assertSame(results.get(0), result);
+        }
+        Assertions.assertEquals("The Lord of the Rings", results.get(0).getName());
+    }
+
+    @Test
+    void findByIdShouldRunOneQueryForConcurrentCallersOfSameCategory() throws Exception {
+
+        final List<CategoryDTO> results = runConcurrently(() -> categoryService.findById(1L));
+
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        for (CategoryDTO result : results) {
+            Assertions.assertSame(results.get(0), result);
+        }
+    }
+
+    @Test
+    void findAllPagedShouldShareOnePageBetweenConcurrentCallersOfSamePage() throws Exception {
+
+        final List<Page<ProductDTO>> results = runConcurrently(() -> (Page<ProductDTO>) productService.findAllPaged(
+                new ProductFilterDTO(), PageRequest.of(0, 10), CountMode.EXACT, ProductFields.WITHOUT_CATEGORIES));
+
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        for (Page<ProductDTO> result : results) {
+            Assertions.assertSame(results.get(0), result);
+        }
+        Assertions.assertEquals(25, results.get(0).getTotalElements());
+    }
+
+    /**
+     * Starts the callers while the pool is drained and gives the connections
+     * back once all callers but the loading one wait on its load.
+     */
+    private <T> List<T> runConcurrently(Callable<T> call) throws Exception {
+        final int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        final List<Connection> held = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                held.add(dataSource.getConnection());
+            }
+            statistics.clear();
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(call));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalescing.waiting() < CALLERS - 1) {
+                Assertions.assertTrue(System.nanoTime() < deadline,
+                        "Only " + coalescing.waiting() + " callers joined the load");
+                Thread.sleep(1);
+            }
+            for (Connection connection : held) {
+                connection.close();
+            }
+            held.clear();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        }
+        finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    private void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+}
@@ -0,0 +1,122 @@
+package com.devsuperior.dscatalog.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.devsuperior.dscatalog.services.exceptions.ResourceNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTests {
+
+    private static final int CALLERS = 16;
+
+    private final SingleFlight<Long, String> flight = new SingleFlight<>();
+
+    @Test
+    void executeShouldShareOneLoadBetweenConcurrentCallersOfSameKey() throws Exception {
+
+        final AtomicInteger loads = new AtomicInteger();
+
+        final List<Future<String>> results = runConcurrently(() -> flight.execute(1L, () -> {
+            loads.incrementAndGet();
+            awaitWaiting(CALLERS - 1);
+            return "product 1";
+        }));
+
+        for (Future<String> result : results) {
+            Assertions.assertEquals("product 1", result.get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(0, flight.waiting());
+    }
+
+    @Test
+    void executeShouldRethrowFailureOfSharedLoadToEveryCaller() throws Exception {
+
+        final AtomicInteger loads = new AtomicInteger();
+
+        final List<Future<String>> results = runConcurrently(() -> flight.execute(1L, () -> {
+            loads.incrementAndGet();
+            awaitWaiting(CALLERS - 1);
+            throw new ResourceNotFoundException("Entity not found");
+        }));
+
+        for (Future<String> result : results) {
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(e.getCause() instanceof ResourceNotFoundException);
+        }
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    void executeShouldLoadAgainOnceSharedLoadFinished() throws Throwable {
+
+        final AtomicInteger loads = new AtomicInteger();
+
+        flight.execute(1L, () -> "load " + loads.incrementAndGet());
+        final String second = flight.execute(1L, () -> "load " + loads.incrementAndGet());
+
+        Assertions.assertEquals("load 2", second);
+    }
+
+    @Test
+    void executeShouldNotShareLoadsOfDifferentKeys() throws Throwable {
+
+        final String first = flight.execute(1L, () -> flight.execute(2L, () -> "product 2") + " inside product 1");
+
+        Assertions.assertEquals("product 2 inside product 1", first);
+    }
+
+    @Test
+    void executeShouldNotJoinLoadStartedBeforeLaterEpoch() throws Throwable {
+
+        final String first = flight.execute(1L, 1, () -> "stale, then " + flight.execute(1L, 2, () -> "fresh"));
+
+        Assertions.assertEquals("stale, then fresh", first);
+        Assertions.assertEquals(0, flight.waiting());
+    }
+
+    private List<Future<String>> runConcurrently(SingleFlight.Loader<String> call) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> {
+                    try {
+                        return call.load();
+                    }
+                    catch (Exception | Error e) {
+                        throw e;
+                    }
+                    catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            return results;
+        }
+        finally {
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private void awaitWaiting(int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.waiting() < callers) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Only " + flight.waiting() + " callers joined the load");
+            }
+            Thread.sleep(1);
+        }
+    }
+}